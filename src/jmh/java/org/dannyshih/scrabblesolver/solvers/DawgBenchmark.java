@@ -0,0 +1,107 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the bundled dictionary, and looking up words and prefixes in it. Half of the lookups are of dictionary words,
+ * and half are of random strings of the same lengths, most of which fail within a few letters.
+ *
+ * @author dshih
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DawgBenchmark {
+    private static final int NUM_LOOKUPS = 4096;
+
+    private List<String> m_words;
+    private Dawg m_dawg;
+    private String[] m_lookups;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Objects.requireNonNull(DawgBenchmark.class.getResourceAsStream("/dictionary.txt")),
+                StandardCharsets.US_ASCII))) {
+            m_words = reader.lines().map(String::trim).filter(word -> !word.isEmpty()).sorted().distinct().toList();
+        }
+
+        final Dawg.Builder builder = new Dawg.Builder();
+        m_words.forEach(builder::addWord);
+        m_dawg = builder.build();
+
+        // Seeded, so every run looks up the same strings
+        final Random random = new Random(42L);
+        m_lookups = new String[NUM_LOOKUPS];
+        for (int i = 0; i < NUM_LOOKUPS; i++) {
+            final String word = m_words.get(random.nextInt(m_words.size()));
+            if (i % 2 == 0) {
+                m_lookups[i] = word;
+            } else {
+                final char[] letters = new char[word.length()];
+                for (int j = 0; j < letters.length; j++) {
+                    letters[j] = (char) ('A' + random.nextInt(Dawg.ALPHABET_SIZE));
+                }
+
+                m_lookups[i] = new String(letters);
+            }
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Dawg build() {
+        final Dawg.Builder builder = new Dawg.Builder();
+        m_words.forEach(builder::addWord);
+        return builder.build();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_LOOKUPS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int isWord() {
+        int found = 0;
+        for (final String lookup : m_lookups) {
+            if (m_dawg.isWord(lookup)) {
+                found++;
+            }
+        }
+
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_LOOKUPS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int beginsWord() {
+        int found = 0;
+        for (final String lookup : m_lookups) {
+            if (m_dawg.beginsWord(lookup)) {
+                found++;
+            }
+        }
+
+        return found;
+    }
+}
@@ -0,0 +1,65 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import org.dannyshih.scrabblesolver.Progress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Permuting a single combination against the bundled dictionary, the inner loop of the permutation solvers. Lowercase
+ * letters in a combination stand for blanks. Each invocation gets a fresh Progress, as each combination of a solve
+ * would, so that its solutions are recorded rather than dropped as duplicates of the previous invocation's.
+ *
+ * @author dshih
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PermutationKernelBenchmark {
+    @Param({"AEINRST", "AEINRSt", "AEEILNORST"})
+    public String combination;
+
+    @Param({".+", "A.+", "(?=A)[A-Z]+"})
+    public String regex;
+
+    private Dawg m_dawg;
+    private Pattern m_regex;
+    private PermutationKernel m_kernel;
+
+    @Setup
+    public void setUp() throws IOException {
+        m_dawg = new DictionaryRegistry().get(null).dawg();
+        m_regex = Pattern.compile(regex);
+    }
+
+    @Setup(Level.Invocation)
+    public void newKernel() {
+        final SolveOperationState state = new SolveOperationState(m_dawg, 2, combination.length(), m_regex,
+                new Progress(), new AtomicBoolean(), new OpTimes(), SolveLimits.none(), 0);
+        m_kernel = new PermutationKernel(state);
+    }
+
+    @Benchmark
+    public long permute() {
+        final long numProcessed = m_kernel.permute(combination);
+        m_kernel.flush();
+        return numProcessed;
+    }
+}
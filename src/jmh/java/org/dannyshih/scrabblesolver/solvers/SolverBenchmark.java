@@ -0,0 +1,67 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import org.dannyshih.scrabblesolver.Progress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * End-to-end solves of a fixed corpus of racks, of 7 to 11 letters with 0 to 3 blanks, by every solver, unconstrained
+ * and with a regex or a minimum length.
+ *
+ * @author dshih
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class SolverBenchmark {
+    @Param({"Sequential", "Parallel", "TrieWalk"})
+    public String solver;
+
+    @Param({"AEINRST", "AEIN*RST", "ERSTILNOEAD", "AEIN*RS*", "AE*R*S*"})
+    public String rack;
+
+    @Param({"none", "regex", "minChars"})
+    public String constraints;
+
+    private Dictionary m_dictionary;
+    private Solver m_solver;
+    private Pattern m_regex;
+    private int m_minCharacters;
+
+    @Setup
+    public void setUp() throws IOException {
+        m_dictionary = new DictionaryRegistry().get(null);
+        m_solver = switch (solver) {
+            case "Sequential" -> new SequentialSolver();
+            case "Parallel" -> new ParallelSolver();
+            case "TrieWalk" -> new TrieWalkSolver();
+            default -> throw new IllegalArgumentException(solver);
+        };
+        m_regex = Pattern.compile(constraints.equals("regex") ? "[AEIOU].*[NRST]" : ".+");
+        m_minCharacters = constraints.equals("minChars") ? rack.length() - 1 : 2;
+    }
+
+    @Benchmark
+    public int solve() {
+        final Progress progress = new Progress();
+        m_solver.solve(m_dictionary, rack, m_minCharacters, 0, m_regex, progress, new AtomicBoolean());
+        return progress.getNumSolutions();
+    }
+}
@@ -2,33 +2,105 @@ package org.dannyshih.scrabblesolver;
 
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 public final class Progress {
-    private final ConcurrentMap<String, Boolean> m_solutions;
+    // Solution -> played form, with the letters that blanks stood for in lowercase
+    private final ConcurrentMap<String, String> m_solutions;
+    // Played forms, in the order they were found and by rank
+    private final SolutionStore m_store;
+    private final Ranking m_ranking;
     private final Stopwatch m_stopwatch;
-    private final AtomicLong m_numProcessed;
+    // Striped, so that workers adding concurrently do not contend
+    private final LongAdder m_numProcessed;
+    private final int m_resultLimit;
 
+    // Time spent before the stopwatch was started, for a restored progress
+    private long m_elapsedBefore;
     private long m_total;
     private Exception m_exception;
-    private RunStatus m_runStatus;
+    private volatile RunStatus m_runStatus;
+    private volatile boolean m_partial;
     private Date m_finished;
 
     public Progress() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxSolutions how many solutions to keep. Further solutions are dropped and the progress marked truncated.
+     */
+    public Progress(int maxSolutions) {
+        this(maxSolutions, 0);
+    }
+
+    /**
+     * @param maxSolutions how many solutions to keep. Further solutions are dropped and the progress marked truncated.
+     * @param resultLimit how many of the solutions, the longest, make up the result. 0 for all of them.
+     */
+    public Progress(int maxSolutions, int resultLimit) {
+        this(maxSolutions, resultLimit, Ranking.Length);
+    }
+
+    /**
+     * @param maxSolutions how many solutions to keep. Further solutions are dropped and the progress marked truncated.
+     * @param resultLimit how many of the solutions, the best, make up the result. 0 for all of them.
+     * @param ranking what makes a solution better than another
+     */
+    public Progress(int maxSolutions, int resultLimit, Ranking ranking) {
+        m_resultLimit = resultLimit;
+        m_ranking = ranking;
         m_solutions = new ConcurrentHashMap<>();
+        m_store = new SolutionStore(maxSolutions, ranking::rank);
         m_total = 0L;
-        m_numProcessed = new AtomicLong();
+        m_numProcessed = new LongAdder();
         m_stopwatch = Stopwatch.createUnstarted();
         m_runStatus = RunStatus.Starting;
     }
 
+    /**
+     * Rebuilds the progress of an operation that finished, e.g. from a record of it on disk.
+     *
+     * @param solutions the played forms of the solutions, in the order they were found
+     * @param finished when the operation finished
+     */
+    public static Progress restore(
+            int resultLimit,
+            Ranking ranking,
+            List<String> solutions,
+            boolean truncated,
+            boolean partial,
+            long total,
+            long numProcessed,
+            long elapsed,
+            Date finished) {
+        final Progress progress = new Progress(Integer.MAX_VALUE, resultLimit, ranking);
+        progress.addSolutions(solutions);
+        if (truncated) {
+            progress.m_store.markTruncated();
+        }
+
+        progress.m_partial = partial;
+        progress.m_total = total;
+        progress.m_numProcessed.add(numProcessed);
+        progress.m_elapsedBefore = elapsed;
+        progress.m_finished = finished;
+        progress.m_runStatus = RunStatus.Done;
+        return progress;
+    }
+
     public void start(long goal) {
         m_total = goal;
         m_stopwatch.start();
@@ -47,12 +119,88 @@ public final class Progress {
         return m_finished;
     }
 
+    public long getTotal() {
+        return m_total;
+    }
+
+    /**
+     * @return a live view of the solutions found so far, mapped to their played forms.
+     */
+    public Map<String, String> getSolutions() {
+        return Collections.unmodifiableMap(m_solutions);
+    }
+
     public void addNumProcessed(long numProcessed) {
-        m_numProcessed.addAndGet(numProcessed);
+        m_numProcessed.add(numProcessed);
+    }
+
+    public long getNumProcessed() {
+        return m_numProcessed.sum();
+    }
+
+    public float getPercentDone() {
+        return ((float)m_numProcessed.sum() / m_total) * 100.0f;
     }
 
+    public long getElapsed() {
+        return m_elapsedBefore + m_stopwatch.elapsed(TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds a solution in its played form, where letters that blanks stood for are lowercase, e.g. "ABrIDGEd".
+     */
     public void addSolution(String solution) {
-        m_solutions.putIfAbsent(solution, true);
+        final String word = solution.toUpperCase(Locale.ROOT);
+        if (m_solutions.putIfAbsent(word, solution) == null && !m_store.add(solution)) {
+            m_solutions.remove(word);
+        }
+    }
+
+    /**
+     * Adds solutions in their played forms, in order. Cheaper than adding them one at a time.
+     *
+     * @return the solutions that were kept: those not found before, and not dropped over the maximum.
+     */
+    public List<String> addSolutions(List<String> solutions) {
+        final List<String> added = new ArrayList<>(solutions.size());
+        for (final String solution : solutions) {
+            if (m_solutions.putIfAbsent(solution.toUpperCase(Locale.ROOT), solution) == null) {
+                added.add(solution);
+            }
+        }
+
+        // The store keeps the first of them, up to its maximum
+        final int numKept = m_store.addAll(added);
+        for (int i = numKept; i < added.size(); i++) {
+            m_solutions.remove(added.get(i).toUpperCase(Locale.ROOT));
+        }
+
+        return added.subList(0, numKept);
+    }
+
+    public int getNumSolutions() {
+        return m_store.size();
+    }
+
+    /**
+     * @return whether solutions were dropped because there were more than the maximum to keep.
+     */
+    public boolean isTruncated() {
+        return m_store.isTruncated();
+    }
+
+    /**
+     * @return the played forms of the solutions found after the first numSolutions, in the order they were found.
+     */
+    public List<String> getSolutionsSince(int numSolutions) {
+        return m_store.since(numSolutions);
+    }
+
+    /**
+     * @return whether the operation's time ran out before it could find every solution it was asked for.
+     */
+    public boolean isPartial() {
+        return m_partial;
     }
 
     public void cancel() {
@@ -61,9 +209,9 @@ public final class Progress {
     }
 
     public void finish(Exception exception) {
-        m_runStatus = RunStatus.Failed;
         m_exception = exception;
         m_finished = new Date();
+        m_runStatus = RunStatus.Failed;
     }
 
     public void finish() {
@@ -72,23 +220,86 @@ public final class Progress {
         m_finished = new Date();
     }
 
+    /**
+     * Finishes with the solutions found before the operation's time ran out.
+     */
+    public void expire() {
+        m_partial = true;
+        finish();
+    }
+
     public SerializableProgress toSerializable() {
+        return toSerializable(0, 0);
+    }
+
+    /**
+     * Solutions are best first, by the progress's ranking. Without a cursor, there are at most as many as the result
+     * limit.
+     *
+     * @param cursor the cursor of a previous response, to only include the solutions found since. 0 for all solutions.
+     * @param limit the maximum number of solutions to include, the best ones. 0 for no limit.
+     */
+    public SerializableProgress toSerializable(int cursor, int limit) {
         SerializableProgress sp = new SerializableProgress();
         sp.runStatus = m_runStatus;
         if (m_runStatus == RunStatus.Starting) {
             sp.solutions = ImmutableList.of();
+            sp.blanks = ImmutableMap.of();
+            sp.cursor = cursor;
             sp.percentDone = 0.0f;
         } else {
-            sp.solutions = new ArrayList<>(m_solutions.keySet());
-            sp.solutions.sort((word0, word1) -> word1.length() - word0.length());
+            final List<String> played;
+            if (cursor <= 0) {
+                // Already in order, so a read costs no more than copying what it returns
+                final SolutionStore.Snapshot snapshot = m_store.snapshot();
+                played = snapshot.best(m_resultLimit == 0 || (limit > 0 && limit < m_resultLimit)
+                        ? limit : m_resultLimit);
+                sp.cursor = snapshot.size();
+            } else {
+                played = m_store.since(cursor);
+                sp.cursor = cursor + played.size();
+                played.sort((word0, word1) -> m_ranking.rank(word1) - m_ranking.rank(word0));
+                if (limit > 0 && played.size() > limit) {
+                    played.subList(limit, played.size()).clear();
+                }
+            }
+
+            sp.solutions = new ArrayList<>(played.size());
+            sp.blanks = new HashMap<>();
+            sp.scores = m_ranking == Ranking.Score ? new HashMap<>() : null;
+            for (final String p : played) {
+                final String solution = p.toUpperCase(Locale.ROOT);
+                sp.solutions.add(solution);
+                if (!solution.equals(p)) {
+                    sp.blanks.put(solution, p);
+                }
+
+                if (sp.scores != null) {
+                    sp.scores.put(solution, TileScores.score(p));
+                }
+            }
+
+            sp.truncated = isTruncated();
+            sp.partial = m_partial;
             sp.total = m_total;
-            sp.percentDone = ((float)m_numProcessed.get() / m_total) * 100.0f;
-            sp.elapsed = m_stopwatch.elapsed(TimeUnit.MILLISECONDS);
+            sp.percentDone = getPercentDone();
+            sp.elapsed = getElapsed();
         }
 
         return sp;
     }
 
+    public enum Ranking {
+        // Longest first
+        Length,
+        // Highest tile score first, with blanks scoring 0
+        Score;
+
+        int rank(String played) {
+            return this == Score ? TileScores.score(played) : played.length();
+        }
+    }
+
     public enum RunStatus {
         Starting,
         Running,
@@ -100,6 +311,16 @@ public final class Progress {
     public static final class SerializableProgress {
         public RunStatus runStatus;
         public List<String> solutions;
+        // Solution -> played form, for solutions that use blanks
+        public Map<String, String> blanks;
+        // Solution -> tile score, when ranking by score
+        public Map<String, Integer> scores;
+        // Pass back to only get the solutions found after these
+        public int cursor;
+        // Whether solutions were dropped because there were more than the maximum to keep
+        public boolean truncated;
+        // Whether the operation's time ran out before it found every solution asked for
+        public boolean partial;
         public long total;
         public float percentDone;
         public long elapsed;
@@ -0,0 +1,65 @@
+package org.dannyshih.scrabblesolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An append-only log of solutions, in the order they were found. The position of a solution in the log is its sequence
+ * number, so a reader can remember how far it has read and later ask for only what was appended since.
+ *
+ * Appends are serialized, but reads take no lock: a reader sees every entry below the size it read. Entries are stored
+ * in fixed-size chunks, so an append never copies earlier entries.
+ */
+final class SolutionLog {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile String[][] m_chunks;
+    private volatile int m_size;
+
+    SolutionLog() {
+        m_chunks = new String[1][];
+    }
+
+    synchronized void append(String solution) {
+        final int chunk = m_size >>> CHUNK_BITS;
+        if (chunk == m_chunks.length) {
+            m_chunks = Arrays.copyOf(m_chunks, m_chunks.length * 2);
+        }
+
+        if (m_chunks[chunk] == null) {
+            m_chunks[chunk] = new String[CHUNK_SIZE];
+        }
+
+        m_chunks[chunk][m_size & CHUNK_MASK] = solution;
+        // Publishes the entry to readers
+        m_size = m_size + 1;
+    }
+
+    int size() {
+        return m_size;
+    }
+
+    /**
+     * @return the entries from the given sequence number to the end of the log.
+     */
+    List<String> since(int from) {
+        final int to = m_size;
+        final List<String> entries = new ArrayList<>(Math.max(0, to - from));
+        copyTo(entries, from, to);
+        return entries;
+    }
+
+    /**
+     * Adds the entries from sequence number from up to, but not including, to. The caller must have read a size of at
+     * least to.
+     */
+    void copyTo(List<String> entries, int from, int to) {
+        final String[][] chunks = m_chunks;
+        for (int i = Math.max(0, from); i < to; i++) {
+            entries.add(chunks[i >>> CHUNK_BITS][i & CHUNK_MASK]);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.dannyshih.scrabblesolver;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * The solutions of an operation, kept both in the order they were found and bucketed by rank, such as length or score,
+ * so that they can be read best first without sorting. Each bucket is in the order its solutions were found.
+ *
+ * Adds are serialized and bounded: once the store holds its maximum number of solutions, further solutions are dropped
+ * and the store is marked truncated. Reads take no lock, except to capture a consistent snapshot of the bucket sizes.
+ */
+final class SolutionStore {
+    private final int m_maxSolutions;
+    private final ToIntFunction<String> m_rank;
+    private final SolutionLog m_log;
+    // Solutions by rank
+    private volatile SolutionLog[] m_buckets;
+    private volatile boolean m_truncated;
+
+    /**
+     * @param maxSolutions how many solutions to keep before dropping further ones.
+     * @param rank the rank of a solution, higher being better. Must be small and not negative.
+     */
+    SolutionStore(int maxSolutions, ToIntFunction<String> rank) {
+        Preconditions.checkArgument(maxSolutions >= 0);
+        m_maxSolutions = maxSolutions;
+        m_rank = rank;
+        m_log = new SolutionLog();
+        m_buckets = new SolutionLog[0];
+    }
+
+    /**
+     * @return whether the solution was kept, rather than dropped because the store is full.
+     */
+    synchronized boolean add(String solution) {
+        if (m_log.size() >= m_maxSolutions) {
+            m_truncated = true;
+            return false;
+        }
+
+        append(solution);
+        return true;
+    }
+
+    /**
+     * Adds the solutions under one lock.
+     *
+     * @return how many of the solutions were kept. Those dropped because the store is full are the last ones.
+     */
+    synchronized int addAll(List<String> solutions) {
+        final int numKept = Math.max(0, Math.min(solutions.size(), m_maxSolutions - m_log.size()));
+        for (int i = 0; i < numKept; i++) {
+            append(solutions.get(i));
+        }
+
+        if (numKept < solutions.size()) {
+            m_truncated = true;
+        }
+
+        return numKept;
+    }
+
+    private void append(String solution) {
+        final int rank = m_rank.applyAsInt(solution);
+        if (rank >= m_buckets.length) {
+            final SolutionLog[] buckets = Arrays.copyOf(m_buckets, rank + 1);
+            for (int i = m_buckets.length; i < buckets.length; i++) {
+                buckets[i] = new SolutionLog();
+            }
+
+            m_buckets = buckets;
+        }
+
+        m_buckets[rank].append(solution);
+        m_log.append(solution);
+    }
+
+    int size() {
+        return m_log.size();
+    }
+
+    /**
+     * Marks the store truncated, as when restoring a store that was.
+     */
+    void markTruncated() {
+        m_truncated = true;
+    }
+
+    boolean isTruncated() {
+        return m_truncated;
+    }
+
+    /**
+     * @return the solutions found after the first from, in the order they were found.
+     */
+    List<String> since(int from) {
+        return m_log.since(from);
+    }
+
+    /**
+     * @return a snapshot of the store. It sees exactly the solutions that were added before it was taken.
+     */
+    synchronized Snapshot snapshot() {
+        final SolutionLog[] buckets = m_buckets;
+        final int[] sizes = new int[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            sizes[i] = buckets[i].size();
+        }
+
+        return new Snapshot(buckets, sizes, m_log.size());
+    }
+
+    static final class Snapshot {
+        private final SolutionLog[] m_buckets;
+        private final int[] m_sizes;
+        private final int m_size;
+
+        private Snapshot(SolutionLog[] buckets, int[] sizes, int size) {
+            m_buckets = buckets;
+            m_sizes = sizes;
+            m_size = size;
+        }
+
+        /**
+         * @return the number of solutions in the snapshot, which is also the sequence number of the next solution.
+         */
+        int size() {
+            return m_size;
+        }
+
+        /**
+         * @param limit the maximum number of solutions to return. 0 for no limit.
+         * @return the best solutions, best first.
+         */
+        List<String> best(int limit) {
+            final int n = limit == 0 ? m_size : Math.min(limit, m_size);
+            final List<String> solutions = new ArrayList<>(n);
+            for (int rank = m_buckets.length - 1; rank >= 0 && solutions.size() < n; rank--) {
+                m_buckets[rank].copyTo(solutions, 0, Math.min(m_sizes[rank], n - solutions.size()));
+            }
+
+            return solutions;
+        }
+    }
+}
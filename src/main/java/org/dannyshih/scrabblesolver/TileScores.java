@@ -0,0 +1,34 @@
+package org.dannyshih.scrabblesolver;
+
+/**
+ * Standard Scrabble tile values. A letter played with a blank, lowercase in played forms, scores 0.
+ *
+ * @author dshih
+ */
+public final class TileScores {
+    private static final int[] S_VALUES = {
+            1, 3, 3, 2, 1, 4, 2, 4, 1, 8, 5, 1, 3, 1, 1, 3, 10, 1, 1, 1, 1, 4, 4, 8, 4, 10 // A-Z
+    };
+
+    private TileScores() {
+    }
+
+    /**
+     * @return the value of an uppercase letter's tile, or 0 for a lowercase letter played with a blank.
+     */
+    public static int value(char c) {
+        return c >= 'A' && c <= 'Z' ? S_VALUES[c - 'A'] : 0;
+    }
+
+    /**
+     * @return the sum of the tile values of a played form, e.g. 10 for "ABrIDGEd".
+     */
+    public static int score(CharSequence played) {
+        int score = 0;
+        for (int i = 0; i < played.length(); i++) {
+            score += value(played.charAt(i));
+        }
+
+        return score;
+    }
+}
@@ -3,12 +3,28 @@ package org.dannyshih.scrabblesolver.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Configuration
 @ConfigurationProperties(prefix = "scrabble.solver")
 public class ScrabbleSolverConfig {
     
     private int maxConcurrentOperations;
+    private int maxQueuedOperations;
+    private int maxQueuedOperationsPerClient;
     private int permutationBatchThreshold;
+    private int parallelism;
+    private int maxWorkersPerOperation;
+    private String defaultDictionary;
+    private long resultCacheMaxBytes;
+    private int maxSolutions = Integer.MAX_VALUE;
+    private int maxBatchSize = 10000;
+    private String archiveDirectory;
+    private long archiveSegmentMaxBytes = 64L * 1024 * 1024;
+    private long archiveCacheMaxBytes = 16L * 1024 * 1024;
+    private long operationsMaxBytes;
+    private Map<String, String> dictionaries = new HashMap<>();
 
     public int getMaxConcurrentOperations() {
         return maxConcurrentOperations;
@@ -18,6 +34,28 @@ public class ScrabbleSolverConfig {
         this.maxConcurrentOperations = maxConcurrentOperations;
     }
 
+    /**
+     * How many solve operations can wait for a slot. Further operations are rejected.
+     */
+    public int getMaxQueuedOperations() {
+        return maxQueuedOperations;
+    }
+
+    public void setMaxQueuedOperations(int maxQueuedOperations) {
+        this.maxQueuedOperations = maxQueuedOperations;
+    }
+
+    /**
+     * How many solve operations from one client can wait for a slot. Further operations from it are rejected.
+     */
+    public int getMaxQueuedOperationsPerClient() {
+        return maxQueuedOperationsPerClient;
+    }
+
+    public void setMaxQueuedOperationsPerClient(int maxQueuedOperationsPerClient) {
+        this.maxQueuedOperationsPerClient = maxQueuedOperationsPerClient;
+    }
+
     public int getPermutationBatchThreshold() {
         return permutationBatchThreshold;
     }
@@ -26,11 +64,130 @@ public class ScrabbleSolverConfig {
         this.permutationBatchThreshold = permutationBatchThreshold;
     }
 
+    /**
+     * The number of workers in the parallel solver's pool. 0 for the number of processors.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * How many of the parallel solver's workers one operation may occupy. 0 for no cap.
+     */
+    public int getMaxWorkersPerOperation() {
+        return maxWorkersPerOperation;
+    }
+
+    public void setMaxWorkersPerOperation(int maxWorkersPerOperation) {
+        this.maxWorkersPerOperation = maxWorkersPerOperation;
+    }
+
+    public String getDefaultDictionary() {
+        return defaultDictionary;
+    }
+
+    public void setDefaultDictionary(String defaultDictionary) {
+        this.defaultDictionary = defaultDictionary;
+    }
+
+    /**
+     * The approximate heap footprint of cached solve results. 0 disables the cache.
+     */
+    public long getResultCacheMaxBytes() {
+        return resultCacheMaxBytes;
+    }
+
+    public void setResultCacheMaxBytes(long resultCacheMaxBytes) {
+        this.resultCacheMaxBytes = resultCacheMaxBytes;
+    }
+
+    /**
+     * How many solutions an operation keeps. Further solutions are dropped.
+     */
+    public int getMaxSolutions() {
+        return maxSolutions;
+    }
+
+    public void setMaxSolutions(int maxSolutions) {
+        this.maxSolutions = maxSolutions;
+    }
+
+    /**
+     * How many racks one batch solve may have.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public String getArchiveDirectory() {
+        return archiveDirectory;
+    }
+
+    public void setArchiveDirectory(String archiveDirectory) {
+        this.archiveDirectory = archiveDirectory;
+    }
+
+    public long getArchiveSegmentMaxBytes() {
+        return archiveSegmentMaxBytes;
+    }
+
+    public void setArchiveSegmentMaxBytes(long archiveSegmentMaxBytes) {
+        this.archiveSegmentMaxBytes = archiveSegmentMaxBytes;
+    }
+
+    public long getArchiveCacheMaxBytes() {
+        return archiveCacheMaxBytes;
+    }
+
+    public void setArchiveCacheMaxBytes(long archiveCacheMaxBytes) {
+        this.archiveCacheMaxBytes = archiveCacheMaxBytes;
+    }
+
+    public long getOperationsMaxBytes() {
+        return operationsMaxBytes;
+    }
+
+    public void setOperationsMaxBytes(long operationsMaxBytes) {
+        this.operationsMaxBytes = operationsMaxBytes;
+    }
+
+    /**
+     * Additional word lists by name, as paths to word list files or compiled dictionary images.
+     */
+    public Map<String, String> getDictionaries() {
+        return dictionaries;
+    }
+
+    public void setDictionaries(Map<String, String> dictionaries) {
+        this.dictionaries = dictionaries;
+    }
+
     @Override
     public String toString() {
         return "ScrabbleSolverConfig{" +
                 "maxConcurrentOperations=" + maxConcurrentOperations +
+                ", maxQueuedOperations=" + maxQueuedOperations +
+                ", maxQueuedOperationsPerClient=" + maxQueuedOperationsPerClient +
                 ", permutationBatchThreshold=" + permutationBatchThreshold +
+                ", parallelism=" + parallelism +
+                ", maxWorkersPerOperation=" + maxWorkersPerOperation +
+                ", defaultDictionary=" + defaultDictionary +
+                ", resultCacheMaxBytes=" + resultCacheMaxBytes +
+                ", maxSolutions=" + maxSolutions +
+                ", maxBatchSize=" + maxBatchSize +
+                ", archiveDirectory=" + archiveDirectory +
+                ", archiveSegmentMaxBytes=" + archiveSegmentMaxBytes +
+                ", archiveCacheMaxBytes=" + archiveCacheMaxBytes +
+                ", operationsMaxBytes=" + operationsMaxBytes +
+                ", dictionaries=" + dictionaries +
                 '}';
     }
 } 
\ No newline at end of file
@@ -1,22 +1,40 @@
 package org.dannyshih.scrabblesolver.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.dannyshih.scrabblesolver.config.ScrabbleSolverConfig;
+import org.dannyshih.scrabblesolver.dto.BoardSolveRequest;
+import org.dannyshih.scrabblesolver.dto.BoardSolveResponse;
 import org.dannyshih.scrabblesolver.dto.CurrentlyRunningResponse;
+import org.dannyshih.scrabblesolver.dto.DictionariesResponse;
 import org.dannyshih.scrabblesolver.dto.GetProgressRequest;
 import org.dannyshih.scrabblesolver.dto.GetProgressResponse;
+import org.dannyshih.scrabblesolver.dto.ReloadDictionaryRequest;
 import org.dannyshih.scrabblesolver.dto.SolveRequest;
 import org.dannyshih.scrabblesolver.dto.SolveResponse;
 import org.dannyshih.scrabblesolver.dto.VersionsResponse;
 import org.dannyshih.scrabblesolver.service.ScrabbleSolverService;
+import org.dannyshih.scrabblesolver.service.SolveRejectedException;
+import org.dannyshih.scrabblesolver.solvers.Dictionary;
+import org.dannyshih.scrabblesolver.solvers.Move;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api")
@@ -30,15 +48,98 @@ public class ScrabbleSolverController {
     }
 
     @PostMapping("/solve")
-    public ResponseEntity<SolveResponse> solve(@RequestBody SolveRequest solveRequest) {
-        UUID operationId = scrabbleSolverService.startSolve(solveRequest);
-        return ResponseEntity.ok(new SolveResponse(operationId));
+    public ResponseEntity<?> solve(@RequestBody SolveRequest solveRequest, HttpServletRequest request) {
+        try {
+            UUID operationId = scrabbleSolverService.startSolve(solveRequest, clientOf(request));
+            return ResponseEntity.ok(new SolveResponse(operationId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (SolveRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                    .body(e.getMessage());
+        }
+    }
+
+    /**
+     * Solves many racks as one queued operation, streaming back each rack's result as a line of JSON as soon as it is
+     * solved.
+     */
+    @PostMapping("/solveBatch")
+    public ResponseEntity<?> solveBatch(@RequestBody List<SolveRequest> solveRequests, HttpServletRequest request) {
+        try {
+            ResponseBodyEmitter emitter = scrabbleSolverService.startBatch(solveRequests, clientOf(request));
+            // Tells a reverse proxy such as Nginx not to buffer the stream
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .header("X-Accel-Buffering", "no")
+                    .body(emitter);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (SolveRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                    .body(e.getMessage());
+        }
+    }
+
+    /**
+     * Finds the highest scoring moves for a rack on a board, and responds with them once the search is done.
+     */
+    @PostMapping("/solveBoard")
+    public ResponseEntity<?> solveBoard(@RequestBody BoardSolveRequest request) {
+        try {
+            long start = System.nanoTime();
+            List<Move> moves = scrabbleSolverService.solveBoard(request);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return ResponseEntity.ok(new BoardSolveResponse(moves, elapsed));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * The client address. Only used to share the solve queue fairly, so it must not come from anything the client
+     * controls: X-Forwarded-For is only honoured by the server, through server.forward-headers-strategy, when the
+     * request comes from a trusted proxy, and then only the entry that proxy appended.
+     */
+    private static String clientOf(HttpServletRequest request) {
+        return request.getRemoteAddr();
     }
 
     @PostMapping("/getProgress")
     public ResponseEntity<?> getProgress(@RequestBody GetProgressRequest request) {
-        ScrabbleSolverService.Operation op = scrabbleSolverService.getOperation(request.getId());
-        
+        return getProgress(
+                scrabbleSolverService.getOperation(request.getId()), request.getCursor(), request.getLimit(), null);
+    }
+
+    /**
+     * The same as POST, but conditional: if nothing changed since the response whose ETag is sent in If-None-Match,
+     * responds 304 Not Modified without building the progress. The ETag covers the cursor and limit, so it only
+     * matches a response to the same query.
+     */
+    @GetMapping("/getProgress")
+    public ResponseEntity<?> pollProgress(
+            @RequestParam UUID id,
+            @RequestParam(required = false) Integer cursor,
+            @RequestParam(defaultValue = "0") int limit,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Computed before the response is built, so a change made while building it changes the next ETag. For a
+        // finished operation, it is computed without reading the result.
+        String eTag = scrabbleSolverService.getProgressETag(id, cursor, limit);
+        if (eTag == null) {
+            return getProgress(null, cursor, limit, null);
+        }
+
+        if (eTag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        return getProgress(scrabbleSolverService.getOperation(id), cursor, limit, eTag);
+    }
+
+    private ResponseEntity<?> getProgress(
+            ScrabbleSolverService.Operation op, Integer cursor, int limit, String eTag) {
         if (op == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Operation not found");
         }
@@ -56,8 +157,26 @@ public class ScrabbleSolverController {
                     .body(op.progress.getError().getMessage());
         }
 
-        GetProgressResponse response = new GetProgressResponse(op.params, op.progress.toSerializable());
-        return ResponseEntity.ok(response);
+        GetProgressResponse response = new GetProgressResponse(
+                op.params, op.progress.toSerializable(cursor == null ? 0 : cursor, Math.max(limit, 0)));
+        return ResponseEntity.ok().eTag(eTag).body(response);
+    }
+
+    /**
+     * Streams progress as server-sent events, each with the solutions found since the previous one. A reconnecting
+     * EventSource sends the id of the last event it saw, and the stream resumes from there.
+     */
+    @GetMapping(path = "/streamProgress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamProgress(
+            @RequestParam UUID id,
+            @RequestHeader(name = "Last-Event-ID", defaultValue = "0") int lastEventId) {
+        SseEmitter emitter = scrabbleSolverService.streamProgress(id, lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Operation not found");
+        }
+
+        // Tells a reverse proxy such as Nginx not to buffer the stream
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
     }
 
     @PostMapping("/cancel")
@@ -88,10 +207,36 @@ public class ScrabbleSolverController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/getDictionaries")
+    public ResponseEntity<DictionariesResponse> getDictionaries() {
+        var dictionaries = scrabbleSolverService.getDictionaries().stream()
+                .map(ScrabbleSolverController::toDictionaryInfo)
+                .toList();
+        return ResponseEntity.ok(new DictionariesResponse(
+                scrabbleSolverService.getDefaultDictionaryName(), dictionaries));
+    }
+
+    @PostMapping("/reloadDictionary")
+    public ResponseEntity<?> reloadDictionary(@RequestBody ReloadDictionaryRequest request) {
+        try {
+            Dictionary dictionary = scrabbleSolverService.reloadDictionary(request.getName());
+            return ResponseEntity.ok(toDictionaryInfo(dictionary));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
     @PostMapping("/getCurrentlyRunning")
     public ResponseEntity<CurrentlyRunningResponse> getCurrentlyRunning() {
         var operations = scrabbleSolverService.getCurrentlyRunningOperations();
         CurrentlyRunningResponse response = new CurrentlyRunningResponse(operations);
         return ResponseEntity.ok(response);
     }
-} 
\ No newline at end of file
+
+    private static DictionariesResponse.DictionaryInfo toDictionaryInfo(Dictionary dictionary) {
+        return new DictionariesResponse.DictionaryInfo(
+                dictionary.getName(), dictionary.getVersion(), dictionary.getNumWords());
+    }
+}
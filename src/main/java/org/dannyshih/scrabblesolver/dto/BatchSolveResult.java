@@ -0,0 +1,32 @@
+package org.dannyshih.scrabblesolver.dto;
+
+import org.dannyshih.scrabblesolver.Progress;
+
+public class BatchSolveResult {
+    // The position of the rack's request in the batch
+    private int index;
+    private Progress.SerializableProgress progress;
+
+    public BatchSolveResult() {}
+
+    public BatchSolveResult(int index, Progress.SerializableProgress progress) {
+        this.index = index;
+        this.progress = progress;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Progress.SerializableProgress getProgress() {
+        return progress;
+    }
+
+    public void setProgress(Progress.SerializableProgress progress) {
+        this.progress = progress;
+    }
+}
@@ -0,0 +1,54 @@
+package org.dannyshih.scrabblesolver.dto;
+
+import java.util.List;
+
+public class BoardSolveRequest {
+    // 15 rows of 15 squares: '.' for empty, uppercase for tiles and lowercase for blanks
+    private List<String> board;
+    // Up to 7 tiles, with '*' for blanks
+    private String rack;
+    private String dictionary;
+    // The maximum number of moves to return, the highest scoring. 0 for all of them.
+    private int limit;
+
+    public BoardSolveRequest() {}
+
+    public BoardSolveRequest(List<String> board, String rack, String dictionary, int limit) {
+        this.board = board;
+        this.rack = rack;
+        this.dictionary = dictionary;
+        this.limit = limit;
+    }
+
+    public List<String> getBoard() {
+        return board;
+    }
+
+    public void setBoard(List<String> board) {
+        this.board = board;
+    }
+
+    public String getRack() {
+        return rack;
+    }
+
+    public void setRack(String rack) {
+        this.rack = rack;
+    }
+
+    public String getDictionary() {
+        return dictionary;
+    }
+
+    public void setDictionary(String dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
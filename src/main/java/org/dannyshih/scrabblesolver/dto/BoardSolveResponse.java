@@ -0,0 +1,34 @@
+package org.dannyshih.scrabblesolver.dto;
+
+import org.dannyshih.scrabblesolver.solvers.Move;
+
+import java.util.List;
+
+public class BoardSolveResponse {
+    // Highest scoring first
+    private List<Move> moves;
+    private long elapsed;
+
+    public BoardSolveResponse() {}
+
+    public BoardSolveResponse(List<Move> moves, long elapsed) {
+        this.moves = moves;
+        this.elapsed = elapsed;
+    }
+
+    public List<Move> getMoves() {
+        return moves;
+    }
+
+    public void setMoves(List<Move> moves) {
+        this.moves = moves;
+    }
+
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    public void setElapsed(long elapsed) {
+        this.elapsed = elapsed;
+    }
+}
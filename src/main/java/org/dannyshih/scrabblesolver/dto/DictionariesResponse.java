@@ -0,0 +1,69 @@
+package org.dannyshih.scrabblesolver.dto;
+
+import java.util.List;
+
+public class DictionariesResponse {
+    private String defaultDictionary;
+    private List<DictionaryInfo> dictionaries;
+
+    public DictionariesResponse() {}
+
+    public DictionariesResponse(String defaultDictionary, List<DictionaryInfo> dictionaries) {
+        this.defaultDictionary = defaultDictionary;
+        this.dictionaries = dictionaries;
+    }
+
+    public String getDefaultDictionary() {
+        return defaultDictionary;
+    }
+
+    public void setDefaultDictionary(String defaultDictionary) {
+        this.defaultDictionary = defaultDictionary;
+    }
+
+    public List<DictionaryInfo> getDictionaries() {
+        return dictionaries;
+    }
+
+    public void setDictionaries(List<DictionaryInfo> dictionaries) {
+        this.dictionaries = dictionaries;
+    }
+
+    public static class DictionaryInfo {
+        private String name;
+        private long version;
+        private int numWords;
+
+        public DictionaryInfo() {}
+
+        public DictionaryInfo(String name, long version, int numWords) {
+            this.name = name;
+            this.version = version;
+            this.numWords = numWords;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public void setVersion(long version) {
+            this.version = version;
+        }
+
+        public int getNumWords() {
+            return numWords;
+        }
+
+        public void setNumWords(int numWords) {
+            this.numWords = numWords;
+        }
+    }
+}
@@ -4,6 +4,10 @@ import java.util.UUID;
 
 public class GetProgressRequest {
     private UUID id;
+    // The cursor of a previous response, to only get the solutions found since. Null for all solutions.
+    private Integer cursor;
+    // The maximum number of solutions to return, the longest ones. 0 for no limit.
+    private int limit;
 
     public GetProgressRequest() {}
 
@@ -18,4 +22,20 @@ public class GetProgressRequest {
     public void setId(UUID id) {
         this.id = id;
     }
+
+    public Integer getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(Integer cursor) {
+        this.cursor = cursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,115 @@
+package org.dannyshih.scrabblesolver.dto;
+
+import org.dannyshih.scrabblesolver.Progress;
+
+import java.util.List;
+
+/**
+ * One event of a progress stream. Solutions are only those found since the previous event, as played forms with the
+ * letters blanks stood for in lowercase.
+ */
+public class ProgressEvent {
+    // Only sent with the first event of a stream
+    private SolveRequest params;
+    private Progress.RunStatus runStatus;
+    private boolean cancellationRequested;
+    private List<String> solutions;
+    private int numSolutions;
+    // Whether solutions were dropped because there were more than the maximum to keep
+    private boolean truncated;
+    private boolean partial;
+    private long total;
+    private float percentDone;
+    private long elapsed;
+    private String error;
+
+    public ProgressEvent() {}
+
+    public SolveRequest getParams() {
+        return params;
+    }
+
+    public void setParams(SolveRequest params) {
+        this.params = params;
+    }
+
+    public Progress.RunStatus getRunStatus() {
+        return runStatus;
+    }
+
+    public void setRunStatus(Progress.RunStatus runStatus) {
+        this.runStatus = runStatus;
+    }
+
+    public boolean isCancellationRequested() {
+        return cancellationRequested;
+    }
+
+    public void setCancellationRequested(boolean cancellationRequested) {
+        this.cancellationRequested = cancellationRequested;
+    }
+
+    public List<String> getSolutions() {
+        return solutions;
+    }
+
+    public void setSolutions(List<String> solutions) {
+        this.solutions = solutions;
+    }
+
+    public int getNumSolutions() {
+        return numSolutions;
+    }
+
+    public void setNumSolutions(int numSolutions) {
+        this.numSolutions = numSolutions;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public void setPartial(boolean partial) {
+        this.partial = partial;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public float getPercentDone() {
+        return percentDone;
+    }
+
+    public void setPercentDone(float percentDone) {
+        this.percentDone = percentDone;
+    }
+
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    public void setElapsed(long elapsed) {
+        this.elapsed = elapsed;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,19 @@
+package org.dannyshih.scrabblesolver.dto;
+
+public class ReloadDictionaryRequest {
+    private String name;
+
+    public ReloadDictionaryRequest() {}
+
+    public ReloadDictionaryRequest(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
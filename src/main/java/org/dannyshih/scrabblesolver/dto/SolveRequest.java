@@ -1,10 +1,24 @@
 package org.dannyshih.scrabblesolver.dto;
 
+import org.dannyshih.scrabblesolver.Progress;
+
 public class SolveRequest {
+    private Algorithm algorithm;
     private boolean parallelMode;
     private String input;
     private String regex;
     private int minChars;
+    // 0 for no maximum
+    private int maxChars;
+    private String dictionary;
+    // How long the operation may take from when it is submitted, in milliseconds. 0 for no limit
+    private long timeBudgetMillis;
+    // When the operation must finish by, in milliseconds since the epoch. 0 for no deadline
+    private long deadline;
+    // The number of best solutions wanted. 0 for every solution
+    private int resultLimit;
+    // What makes a solution better than another. Null for length
+    private Progress.Ranking ranking;
 
     // Default constructor for JSON deserialization
     public SolveRequest() {}
@@ -16,6 +30,14 @@ public class SolveRequest {
         this.minChars = minChars;
     }
 
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
     public boolean isParallelMode() {
         return parallelMode;
     }
@@ -47,4 +69,59 @@ public class SolveRequest {
     public void setMinChars(int minChars) {
         this.minChars = minChars;
     }
-} 
\ No newline at end of file
+
+    public int getMaxChars() {
+        return maxChars;
+    }
+
+    public void setMaxChars(int maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    public String getDictionary() {
+        return dictionary;
+    }
+
+    public void setDictionary(String dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    public int getResultLimit() {
+        return resultLimit;
+    }
+
+    public void setResultLimit(int resultLimit) {
+        this.resultLimit = resultLimit;
+    }
+
+    public Progress.Ranking getRanking() {
+        return ranking;
+    }
+
+    public void setRanking(Progress.Ranking ranking) {
+        this.ranking = ranking;
+    }
+
+    public enum Algorithm {
+        // Generate combinations of the input and permute each against the dictionary (the default)
+        Permutation,
+        // Walk the dictionary once, driven by the letters remaining in the input
+        TrieWalk
+    }
+}
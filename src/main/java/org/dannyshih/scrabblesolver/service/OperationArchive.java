@@ -0,0 +1,442 @@
+package org.dannyshih.scrabblesolver.service;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.dannyshih.scrabblesolver.Progress;
+import org.dannyshih.scrabblesolver.dto.SolveRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Keeps the results of finished operations on disk rather than on the heap, for as long as clients may ask for them.
+ *
+ * Results are appended to segment files in a directory. Each record is a header, holding the length of the body, the
+ * operation's id, when it finished and the counts its progress ETag is made of, followed by the body: the operation's
+ * request and progress, deflated. Once a segment reaches its maximum size, records go to a new one. Segments are never
+ * rewritten; one is deleted whole once every record in it has expired. Reads go through a memory mapping of the
+ * segment, so the heap only holds an index of where each operation's record is, with the header's fields.
+ *
+ * A poll that the ETag answers never touches the body. Results that are read are kept inflated in a cache bounded by
+ * their estimated heap footprint, so a client polling a large result does not inflate it on every poll.
+ *
+ * The index is rebuilt from the record headers on startup, so results outlive a restart. A record torn by a crash
+ * ends the scan of its segment. An archive locks its directory, so that two servers cannot share one and expire each
+ * other's results.
+ *
+ * @author dshih
+ */
+final class OperationArchive {
+    private static final Logger S_LOGGER = LoggerFactory.getLogger(OperationArchive.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final String LOCK_FILE = "archive.lock";
+    // Body length, id, finished time, number of solutions and number processed
+    private static final int HEADER_BYTES = 2 * Integer.BYTES + 4 * Long.BYTES;
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path directory;
+    private final long segmentMaxBytes;
+    private final ConcurrentMap<UUID, Location> index;
+    // Segment number -> segment
+    private final ConcurrentSkipListMap<Integer, Segment> segments;
+    private final Cache<UUID, ScrabbleSolverService.Operation> inflated;
+    private final FileChannel lockChannel;
+    // Guarded by this
+    private Segment active;
+
+    /**
+     * @param segmentMaxBytes the size of a segment past which records go to a new one. At most 2 GB, the most that
+     *      can be mapped at once.
+     * @param cacheMaxBytes the approximate heap footprint of the results kept inflated. 0 inflates every read.
+     */
+    OperationArchive(Path directory, long segmentMaxBytes, long cacheMaxBytes) throws IOException {
+        Preconditions.checkArgument(segmentMaxBytes > 0L && segmentMaxBytes <= Integer.MAX_VALUE);
+        Preconditions.checkArgument(cacheMaxBytes >= 0L);
+        this.directory = directory;
+        this.segmentMaxBytes = segmentMaxBytes;
+        this.index = new ConcurrentHashMap<>();
+        this.segments = new ConcurrentSkipListMap<>();
+        this.inflated = CacheBuilder.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .weigher((UUID operationId, ScrabbleSolverService.Operation op) ->
+                        (int) Math.min(OperationRegistry.estimate(op), Integer.MAX_VALUE))
+                .build();
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Archive directory " + directory + " is in use by another server");
+        }
+
+        recover();
+    }
+
+    /**
+     * Appends the finished operation's result.
+     */
+    synchronized void put(UUID operationId, SolveRequest params, Progress progress) throws IOException {
+        Preconditions.checkArgument(progress.getRunStatus() == Progress.RunStatus.Done);
+        final byte[] body = encode(params, progress);
+        if (active == null || (active.size > 0L && active.size + HEADER_BYTES + body.length > segmentMaxBytes)) {
+            roll();
+        }
+
+        final long finished = progress.getFinishedDate().getTime();
+        final ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + body.length)
+                .putInt(body.length)
+                .putLong(operationId.getMostSignificantBits())
+                .putLong(operationId.getLeastSignificantBits())
+                .putLong(finished)
+                .putInt(progress.getNumSolutions())
+                .putLong(progress.getNumProcessed())
+                .put(body)
+                .flip();
+        final long offset = active.append(record);
+        active.newestFinished = Math.max(active.newestFinished, finished);
+        index.put(operationId, new Location(active, (int) offset + HEADER_BYTES, body.length, finished,
+                progress.getNumSolutions(), progress.getNumProcessed()));
+    }
+
+    /**
+     * @return the operation, rebuilt from its record, or null if it is not in the archive.
+     */
+    ScrabbleSolverService.Operation get(UUID operationId) {
+        final Location location = index.get(operationId);
+        if (location == null) {
+            return null;
+        }
+
+        final ScrabbleSolverService.Operation cached = inflated.getIfPresent(operationId);
+        if (cached != null) {
+            return cached;
+        }
+
+        final byte[] body = new byte[location.length];
+        try {
+            location.segment.read(location.offset, location.length).get(body);
+            final ScrabbleSolverService.Operation op = decode(body, new Date(location.finished));
+            inflated.put(operationId, op);
+            return op;
+        } catch (IOException e) {
+            // The segment was deleted as the operation expired
+            if (!index.containsKey(operationId)) {
+                return null;
+            }
+
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    boolean contains(UUID operationId) {
+        return index.containsKey(operationId);
+    }
+
+    /**
+     * @return the operation's part of its progress ETag, from the index alone, or null if it is not in the archive.
+     */
+    String progressState(UUID operationId) {
+        final Location location = index.get(operationId);
+        return location == null ? null : ScrabbleSolverService.progressState(
+                Progress.RunStatus.Done, location.numSolutions, location.numProcessed, false);
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    /**
+     * Forgets the operations that finished before the time, and deletes the segments that only hold those.
+     *
+     * @param before milliseconds since the epoch
+     */
+    synchronized void expire(long before) {
+        index.values().removeIf(location -> location.finished < before);
+        inflated.asMap().keySet().removeIf(operationId -> !index.containsKey(operationId));
+        for (final Segment segment : segments.values()) {
+            if (segment.newestFinished < before) {
+                if (segment == active) {
+                    active = null;
+                }
+
+                segments.remove(segment.number);
+                segment.delete();
+            }
+        }
+    }
+
+    /**
+     * Closes the segments and unlocks the directory.
+     */
+    synchronized void close() throws IOException {
+        for (final Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+
+        lockChannel.close();
+    }
+
+    private void roll() throws IOException {
+        final int number = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        active = Segment.create(directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX), number);
+        segments.put(number, active);
+    }
+
+    private void recover() throws IOException {
+        final List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> {
+                final String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).toList();
+        }
+
+        for (final Path path : paths) {
+            final String name = path.getFileName().toString();
+            final int number;
+            try {
+                number = Integer.parseInt(
+                        name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+
+            final Segment segment = Segment.open(path, number);
+            final ByteBuffer records = segment.read(0L, (int) segment.size);
+            while (records.remaining() >= HEADER_BYTES) {
+                final int length = records.getInt();
+                final UUID operationId = new UUID(records.getLong(), records.getLong());
+                final long finished = records.getLong();
+                final int numSolutions = records.getInt();
+                final long numProcessed = records.getLong();
+                if (length < 0 || records.remaining() < length) {
+                    S_LOGGER.warn("OperationArchive :: {} ends with a torn record", path);
+                    break;
+                }
+
+                index.put(operationId,
+                        new Location(segment, records.position(), length, finished, numSolutions, numProcessed));
+                segment.newestFinished = Math.max(segment.newestFinished, finished);
+                records.position(records.position() + length);
+            }
+
+            segments.put(number, segment);
+        }
+
+        S_LOGGER.info("OperationArchive :: recovered {} operations from {} segments in {}",
+                index.size(), segments.size(), directory);
+    }
+
+    private static byte[] encode(SolveRequest params, Progress progress) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            out.writeByte(FORMAT_VERSION);
+            writeNullable(out, params.getAlgorithm() == null ? null : params.getAlgorithm().name());
+            out.writeBoolean(params.isParallelMode());
+            writeNullable(out, params.getInput());
+            writeNullable(out, params.getRegex());
+            out.writeInt(params.getMinChars());
+            out.writeInt(params.getMaxChars());
+            writeNullable(out, params.getDictionary());
+            out.writeLong(params.getTimeBudgetMillis());
+            out.writeLong(params.getDeadline());
+            out.writeInt(params.getResultLimit());
+            writeNullable(out, params.getRanking() == null ? null : params.getRanking().name());
+
+            out.writeBoolean(progress.isTruncated());
+            out.writeBoolean(progress.isPartial());
+            out.writeLong(progress.getTotal());
+            out.writeLong(progress.getNumProcessed());
+            out.writeLong(progress.getElapsed());
+            final List<String> solutions = progress.getSolutionsSince(0);
+            out.writeInt(solutions.size());
+            for (final String solution : solutions) {
+                out.writeUTF(solution);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static ScrabbleSolverService.Operation decode(byte[] body, Date finished) throws IOException {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(body)))) {
+            final int version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported record version " + version);
+            }
+
+            final SolveRequest params = new SolveRequest();
+            final String algorithm = readNullable(in);
+            params.setAlgorithm(algorithm == null ? null : SolveRequest.Algorithm.valueOf(algorithm));
+            params.setParallelMode(in.readBoolean());
+            params.setInput(readNullable(in));
+            params.setRegex(readNullable(in));
+            params.setMinChars(in.readInt());
+            params.setMaxChars(in.readInt());
+            params.setDictionary(readNullable(in));
+            params.setTimeBudgetMillis(in.readLong());
+            params.setDeadline(in.readLong());
+            params.setResultLimit(in.readInt());
+            final String ranking = readNullable(in);
+            params.setRanking(ranking == null ? null : Progress.Ranking.valueOf(ranking));
+
+            final boolean truncated = in.readBoolean();
+            final boolean partial = in.readBoolean();
+            final long total = in.readLong();
+            final long numProcessed = in.readLong();
+            final long elapsed = in.readLong();
+            final int numSolutions = in.readInt();
+            final List<String> solutions = new ArrayList<>(numSolutions);
+            for (int i = 0; i < numSolutions; i++) {
+                solutions.add(in.readUTF());
+            }
+
+            final ScrabbleSolverService.Operation op = new ScrabbleSolverService.Operation();
+            op.params = params;
+            op.progress = Progress.restore(params.getResultLimit(),
+                    params.getRanking() == null ? Progress.Ranking.Length : params.getRanking(),
+                    solutions, truncated, partial, total, numProcessed, elapsed, finished);
+            op.isCancellationRequested = new AtomicBoolean();
+            return op;
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static final class Location {
+        final Segment segment;
+        final int offset;
+        final int length;
+        final long finished;
+        final int numSolutions;
+        final long numProcessed;
+
+        Location(Segment segment, int offset, int length, long finished, int numSolutions, long numProcessed) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.finished = finished;
+            this.numSolutions = numSolutions;
+            this.numProcessed = numProcessed;
+        }
+    }
+
+    /**
+     * A segment file, appended to through its channel and read through a mapping of it. The mapping is replaced by a
+     * larger one when a read reaches past it, as happens while the segment is still being appended to.
+     */
+    private static final class Segment {
+        final Path path;
+        final int number;
+        final FileChannel channel;
+        volatile long size;
+        volatile long newestFinished;
+        private volatile MappedByteBuffer mapping;
+
+        private Segment(Path path, int number, FileChannel channel, long size) {
+            this.path = path;
+            this.number = number;
+            this.channel = channel;
+            this.size = size;
+            this.newestFinished = Long.MIN_VALUE;
+        }
+
+        static Segment create(Path path, int number) throws IOException {
+            return new Segment(path, number, FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE), 0L);
+        }
+
+        static Segment open(Path path, int number) throws IOException {
+            final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            return new Segment(path, number, channel, channel.size());
+        }
+
+        /**
+         * @return the offset the record was written at.
+         */
+        long append(ByteBuffer record) throws IOException {
+            final long offset = size;
+            long position = offset;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+
+            size = position;
+            return offset;
+        }
+
+        /**
+         * @return a read-only view of the bytes, backed by the mapping.
+         */
+        ByteBuffer read(long offset, int length) throws IOException {
+            MappedByteBuffer current = mapping;
+            if (current == null || offset + length > current.capacity()) {
+                synchronized (this) {
+                    current = mapping;
+                    if (current == null || offset + length > current.capacity()) {
+                        mapping = current = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+                    }
+                }
+            }
+
+            return current.slice((int) offset, length);
+        }
+
+        void delete() {
+            try {
+                channel.close();
+                // A mapping outlives its file, so readers that already have it can finish
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                S_LOGGER.warn("OperationArchive :: could not delete {}: {}", path, e.getMessage());
+            }
+        }
+    }
+}
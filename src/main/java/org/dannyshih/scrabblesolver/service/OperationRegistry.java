@@ -0,0 +1,213 @@
+package org.dannyshih.scrabblesolver.service;
+
+import com.google.common.base.Preconditions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+/**
+ * The operations held in memory, with an estimate of the heap each occupies.
+ *
+ * An operation is running until it is finished, at which point it is given a time to expire and queued by that time.
+ * Reaping pops the queue up to now, so it costs the number of operations that expired rather than the number held.
+ * Running operations are never evicted, but their solutions grow, so their estimates are refreshed as reaping runs.
+ *
+ * If the estimated total exceeds the memory budget, finished operations are evicted before their time, in the order
+ * they would expire: failed and canceled operations, which expire soon anyway, then the oldest results. Evictions are
+ * counted in the solver.operations.evicted metric, tagged with their reason.
+ *
+ * @author dshih
+ */
+final class OperationRegistry {
+    private static final Logger S_LOGGER = LoggerFactory.getLogger(OperationRegistry.class);
+    private static final int OPERATION_OVERHEAD = 1024; // bytes, for the operation, its request and its progress
+    // Bytes, for the log and bucket entries of a solution and its two Strings, besides their characters
+    private static final int SOLUTION_OVERHEAD = 128;
+    private static final Comparator<Entry> S_BY_EXPIRY = Comparator.comparingLong((Entry entry) -> entry.expiresAt)
+            .thenComparingLong(entry -> entry.sequence);
+
+    private final long maxBytes;
+    private final ConcurrentMap<UUID, Entry> entries;
+    private final Counter expiredCounter;
+    private final Counter budgetCounter;
+
+    // Guarded by this
+    private final Map<UUID, Entry> running;
+    private final PriorityQueue<Entry> expiries;
+    private long totalBytes;
+    private long sequence;
+
+    /**
+     * @param maxBytes the memory budget, as the estimated heap footprint of the operations. 0 for no budget.
+     */
+    OperationRegistry(long maxBytes, MeterRegistry meterRegistry) {
+        Preconditions.checkArgument(maxBytes >= 0L);
+        this.maxBytes = maxBytes;
+        this.entries = new ConcurrentHashMap<>();
+        this.running = new HashMap<>();
+        this.expiries = new PriorityQueue<>(S_BY_EXPIRY);
+
+        Gauge.builder("solver.operations", this, OperationRegistry::size)
+                .description("Solve operations held in memory")
+                .register(meterRegistry);
+        Gauge.builder("solver.operations.memory", this, OperationRegistry::sizeInBytes)
+                .description("Estimated heap footprint of the solve operations held in memory")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.expiredCounter = Counter.builder("solver.operations.evicted")
+                .description("Solve operations dropped from memory")
+                .tag("reason", "expired")
+                .register(meterRegistry);
+        this.budgetCounter = Counter.builder("solver.operations.evicted")
+                .description("Solve operations dropped from memory")
+                .tag("reason", "memoryBudget")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adds a running operation.
+     */
+    synchronized void add(UUID operationId, ScrabbleSolverService.Operation op) {
+        final Entry entry = new Entry(operationId, op);
+        Preconditions.checkState(entries.putIfAbsent(operationId, entry) == null, "Duplicate operation");
+        running.put(operationId, entry);
+        totalBytes += entry.bytes;
+    }
+
+    /**
+     * @return the operation, or null if there is no such operation in memory.
+     */
+    ScrabbleSolverService.Operation get(UUID operationId) {
+        final Entry entry = entries.get(operationId);
+        return entry == null ? null : entry.operation;
+    }
+
+    synchronized void remove(UUID operationId) {
+        final Entry entry = entries.remove(operationId);
+        if (entry == null) {
+            return;
+        }
+
+        if (running.remove(operationId) == null) {
+            expiries.remove(entry);
+        }
+
+        totalBytes -= entry.bytes;
+    }
+
+    /**
+     * Marks the operation finished, to expire at the time, and evicts finished operations if that put the registry
+     * over its budget.
+     *
+     * @param expiresAt milliseconds since the epoch
+     */
+    synchronized void finish(UUID operationId, long expiresAt) {
+        final Entry entry = running.remove(operationId);
+        if (entry == null) {
+            return;
+        }
+
+        reestimate(entry);
+        entry.expiresAt = expiresAt;
+        entry.sequence = sequence++;
+        expiries.add(entry);
+        evictOverBudget();
+    }
+
+    /**
+     * Drops the finished operations that expired by the time, then evicts finished operations if the refreshed
+     * estimates of the running ones put the registry over its budget.
+     *
+     * @param now milliseconds since the epoch
+     */
+    synchronized void expire(long now) {
+        while (!expiries.isEmpty() && expiries.peek().expiresAt <= now) {
+            final Entry entry = expiries.poll();
+            entries.remove(entry.operationId);
+            totalBytes -= entry.bytes;
+            expiredCounter.increment();
+        }
+
+        running.values().forEach(this::reestimate);
+        evictOverBudget();
+    }
+
+    void forEach(BiConsumer<UUID, ScrabbleSolverService.Operation> action) {
+        entries.forEach((operationId, entry) -> action.accept(operationId, entry.operation));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    synchronized long sizeInBytes() {
+        return totalBytes;
+    }
+
+    private void evictOverBudget() {
+        if (maxBytes == 0L || totalBytes <= maxBytes) {
+            return;
+        }
+
+        int numEvicted = 0;
+        while (totalBytes > maxBytes && !expiries.isEmpty()) {
+            final Entry entry = expiries.poll();
+            entries.remove(entry.operationId);
+            totalBytes -= entry.bytes;
+            numEvicted++;
+        }
+
+        // Running operations alone are over the budget, and are never evicted
+        if (numEvicted == 0) {
+            S_LOGGER.debug("OperationRegistry :: {} bytes held by running operations, over {} bytes",
+                    totalBytes, maxBytes);
+            return;
+        }
+
+        budgetCounter.increment(numEvicted);
+        S_LOGGER.warn("OperationRegistry :: evicted {} finished operations to stay within {} bytes, {} bytes held",
+                numEvicted, maxBytes, totalBytes);
+    }
+
+    private void reestimate(Entry entry) {
+        final long bytes = estimate(entry.operation);
+        totalBytes += bytes - entry.bytes;
+        entry.bytes = bytes;
+    }
+
+    /**
+     * @return the approximate heap footprint of the operation. Solutions are charged as long as the input, the most
+     *      they can be, so that the estimate needs no walk of them.
+     */
+    static long estimate(ScrabbleSolverService.Operation op) {
+        final String input = op.params.getInput();
+        final int length = input == null ? 0 : input.length();
+        // Each solution is held as its word and its played form, two bytes per character
+        return OPERATION_OVERHEAD + (long) op.progress.getNumSolutions() * (SOLUTION_OVERHEAD + 4L * length);
+    }
+
+    private static final class Entry {
+        final UUID operationId;
+        final ScrabbleSolverService.Operation operation;
+        long bytes;
+        long expiresAt;
+        long sequence;
+
+        Entry(UUID operationId, ScrabbleSolverService.Operation operation) {
+            this.operationId = operationId;
+            this.operation = operation;
+            this.bytes = estimate(operation);
+        }
+    }
+}
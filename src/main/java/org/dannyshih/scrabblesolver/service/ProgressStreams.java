@@ -0,0 +1,167 @@
+package org.dannyshih.scrabblesolver.service;
+
+import org.dannyshih.scrabblesolver.Progress;
+import org.dannyshih.scrabblesolver.dto.ProgressEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes the progress of operations to server-sent event streams.
+ *
+ * Changes are coalesced rather than pushed as each solution is found: every period, each stream whose operation has
+ * changed is sent one event with the solutions found since its previous event and the current progress. The id of each
+ * event is the number of solutions the stream has been sent, so a client that reconnects with Last-Event-ID picks up
+ * where it left off. A stream is completed after the event that reports its operation finished.
+ *
+ * Sending blocks until the event is written to the client, so each send runs on a virtual thread of its own, and a
+ * stream whose previous send has not finished is skipped for the period. A stalled client only holds up its own stream.
+ *
+ * @author dshih
+ */
+final class ProgressStreams {
+    private static final Logger S_LOGGER = LoggerFactory.getLogger(ProgressStreams.class);
+    private static final long COALESCE_PERIOD = 100; // ms
+
+    private final Set<Stream> streams;
+    private final Executor sender;
+
+    ProgressStreams() {
+        this.streams = ConcurrentHashMap.newKeySet();
+        this.sender = Executors.newVirtualThreadPerTaskExecutor();
+        ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor();
+        publisher.scheduleWithFixedDelay(
+                () -> streams.forEach(this::trySend), COALESCE_PERIOD, COALESCE_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a stream of the operation's progress.
+     *
+     * @param numSolutions how many solutions the client already has, e.g. from the Last-Event-ID of a reconnect
+     */
+    SseEmitter open(ScrabbleSolverService.Operation op, int numSolutions) {
+        // No timeout: the stream ends when the operation does, or when a send finds the client gone
+        final SseEmitter emitter = new SseEmitter(0L);
+        final Stream stream = new Stream(op, emitter,
+                Math.max(0, Math.min(numSolutions, op.progress.getNumSolutions())));
+        emitter.onCompletion(() -> streams.remove(stream));
+        emitter.onError(e -> streams.remove(stream));
+        streams.add(stream);
+        return emitter;
+    }
+
+    /**
+     * Pushes to the stream on a thread of its own, unless its previous push is still sending.
+     */
+    private void trySend(Stream stream) {
+        if (!stream.isSending.compareAndSet(false, true)) {
+            return;
+        }
+
+        sender.execute(() -> {
+            try {
+                tryPush(stream);
+            } finally {
+                stream.isSending.set(false);
+            }
+        });
+    }
+
+    private void tryPush(Stream stream) {
+        try {
+            push(stream);
+        } catch (RuntimeException e) {
+            S_LOGGER.error("ProgressStreams :: error pushing progress: {}", e.getMessage(), e);
+            streams.remove(stream);
+            stream.emitter.completeWithError(e);
+        }
+    }
+
+    private void push(Stream stream) {
+        final Progress progress = stream.op.progress;
+        // The status is read first, so that the event reporting a finished operation has every solution
+        final Progress.RunStatus runStatus = progress.getRunStatus();
+        final boolean isCancellationRequested = stream.op.isCancellationRequested.get();
+        final long numProcessed = progress.getNumProcessed();
+        if (stream.hasSentParams
+                && runStatus == stream.runStatus
+                && isCancellationRequested == stream.isCancellationRequested
+                && numProcessed == stream.numProcessed
+                && progress.getNumSolutions() == stream.numSolutions) {
+            return;
+        }
+
+        final List<String> solutions = progress.getSolutionsSince(stream.numSolutions);
+        final ProgressEvent event = new ProgressEvent();
+        event.setParams(stream.hasSentParams ? null : stream.op.params);
+        event.setRunStatus(runStatus);
+        event.setCancellationRequested(isCancellationRequested);
+        event.setSolutions(solutions);
+        event.setNumSolutions(stream.numSolutions + solutions.size());
+        event.setTruncated(progress.isTruncated());
+        event.setPartial(progress.isPartial());
+        if (runStatus != Progress.RunStatus.Starting) {
+            event.setTotal(progress.getTotal());
+            event.setPercentDone(progress.getPercentDone());
+            event.setElapsed(progress.getElapsed());
+        }
+
+        if (runStatus == Progress.RunStatus.Failed) {
+            event.setError(progress.getError().getMessage());
+        }
+
+        try {
+            stream.emitter.send(SseEmitter.event()
+                    .id(Integer.toString(event.getNumSolutions()))
+                    .data(event, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // The client went away
+            S_LOGGER.debug("ProgressStreams :: dropping stream: {}", e.getMessage());
+            streams.remove(stream);
+            return;
+        }
+
+        stream.hasSentParams = true;
+        stream.runStatus = runStatus;
+        stream.isCancellationRequested = isCancellationRequested;
+        stream.numProcessed = numProcessed;
+        stream.numSolutions = event.getNumSolutions();
+        if (runStatus == Progress.RunStatus.Done
+                || runStatus == Progress.RunStatus.Canceled
+                || runStatus == Progress.RunStatus.Failed) {
+            streams.remove(stream);
+            stream.emitter.complete();
+        }
+    }
+
+    /**
+     * A stream and what it was last sent. Only touched by the push holding isSending once open.
+     */
+    private static final class Stream {
+        private final ScrabbleSolverService.Operation op;
+        private final SseEmitter emitter;
+        private final AtomicBoolean isSending = new AtomicBoolean();
+        private boolean hasSentParams;
+        private Progress.RunStatus runStatus;
+        private boolean isCancellationRequested;
+        private long numProcessed;
+        private int numSolutions;
+
+        Stream(ScrabbleSolverService.Operation op, SseEmitter emitter, int numSolutions) {
+            this.op = op;
+            this.emitter = emitter;
+            this.numSolutions = numSolutions;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.dannyshih.scrabblesolver.service;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.dannyshih.scrabblesolver.Progress;
+import org.dannyshih.scrabblesolver.dto.SolveRequest;
+import org.dannyshih.scrabblesolver.solvers.Dictionary;
+import org.dannyshih.scrabblesolver.solvers.Solver;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A bounded cache of the results of finished solve operations, so that a repeated rack is answered without solving.
+ *
+ * A result depends only on the letters of the rack regardless of order, the number of blanks, the length bounds, the
+ * regex, the dictionary version and the solver, so those make up the key. Every solver finds the same solutions, but
+ * not with the same played forms: where a blank could stand for either of two letters, which one it stands for
+ * depends on the order the solver tries them in. The solver is part of the key, so a hit places blanks as the solver
+ * would have.
+ *
+ * The cache is bounded by the approximate heap footprint of its results, evicting the least recently used first. Every
+ * result is charged a fixed overhead on top of its solutions, which also bounds the number of entries.
+ *
+ * @author dshih
+ */
+final class ResultCache implements MeterBinder {
+    static final String METRIC_NAME = "solveResults";
+
+    private static final int RESULT_OVERHEAD = 512; // bytes
+    private static final int SOLUTION_OVERHEAD = 128; // bytes, for the map entry and two Strings
+
+    private final Cache<Key, Result> cache;
+
+    /**
+     * @param maxBytes the approximate heap footprint of the cache. 0 disables it.
+     */
+    ResultCache(long maxBytes) {
+        Preconditions.checkArgument(maxBytes >= 0L);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, Result result) -> result.weight)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        GuavaCacheMetrics.monitor(registry, cache, METRIC_NAME);
+    }
+
+    /**
+     * Completes the progress with the cached result for the request, if there is one.
+     *
+     * @return whether the request was answered from the cache
+     */
+    boolean complete(SolveRequest solveRequest, Dictionary dictionary, Solver solver, Progress progress) {
+        final Result result = cache.getIfPresent(new Key(solveRequest, dictionary, solver));
+        if (result == null) {
+            return false;
+        }
+
+        progress.start(result.total);
+        result.solutions.values().forEach(progress::addSolution);
+        progress.addNumProcessed(result.total);
+        progress.finish();
+        return true;
+    }
+
+    /**
+     * Caches the result of a solve operation. Only operations that ran to completion with every solution are cached, so
+     * not those that ran out of time or only looked for the best solutions.
+     */
+    void put(SolveRequest solveRequest, Dictionary dictionary, Solver solver, Progress progress) {
+        if (progress.getRunStatus() == Progress.RunStatus.Done && !progress.isTruncated() && !progress.isPartial()
+                && solveRequest.getResultLimit() == 0) {
+            cache.put(new Key(solveRequest, dictionary, solver), new Result(progress));
+        }
+    }
+
+    long size() {
+        return cache.size();
+    }
+
+    private static final class Key {
+        private final String letters;
+        private final int numBlanks;
+        private final int minChars;
+        private final int maxChars;
+        private final String regex;
+        private final String dictionaryName;
+        private final long dictionaryVersion;
+        private final Class<? extends Solver> solver;
+
+        Key(SolveRequest solveRequest, Dictionary dictionary, Solver solver) {
+            final String input = Objects.requireNonNullElse(solveRequest.getInput(), "");
+            final char[] letters = input.replace("*", "").toCharArray();
+            Arrays.sort(letters);
+            this.letters = new String(letters);
+            this.numBlanks = input.length() - letters.length;
+            this.minChars = solveRequest.getMinChars();
+            // No maximum is the same as a maximum of the rack length
+            this.maxChars = solveRequest.getMaxChars() == 0
+                    ? input.length() : Math.min(solveRequest.getMaxChars(), input.length());
+            this.regex = solveRequest.getRegex();
+            this.dictionaryName = dictionary.getName();
+            this.dictionaryVersion = dictionary.getVersion();
+            this.solver = solver.getClass();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            final Key other = (Key) o;
+            return letters.equals(other.letters)
+                    && numBlanks == other.numBlanks
+                    && minChars == other.minChars
+                    && maxChars == other.maxChars
+                    && Objects.equals(regex, other.regex)
+                    && dictionaryName.equals(other.dictionaryName)
+                    && dictionaryVersion == other.dictionaryVersion
+                    && solver == other.solver;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(
+                    letters, numBlanks, minChars, maxChars, regex, dictionaryName, dictionaryVersion, solver);
+        }
+    }
+
+    private static final class Result {
+        // Solution -> played form
+        private final Map<String, String> solutions;
+        private final long total;
+        private final int weight;
+
+        Result(Progress progress) {
+            this.solutions = ImmutableMap.copyOf(progress.getSolutions());
+            this.total = progress.getTotal();
+            long weight = RESULT_OVERHEAD;
+            for (final Map.Entry<String, String> solution : solutions.entrySet()) {
+                weight += SOLUTION_OVERHEAD + 2L * (solution.getKey().length() + solution.getValue().length());
+            }
+
+            this.weight = (int) Math.min(weight, Integer.MAX_VALUE);
+        }
+    }
+}
@@ -1,27 +1,45 @@
 package org.dannyshih.scrabblesolver.service;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.math.LongMath;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.dannyshih.scrabblesolver.Progress;
 import org.dannyshih.scrabblesolver.config.ScrabbleSolverConfig;
+import org.dannyshih.scrabblesolver.dto.BatchSolveResult;
+import org.dannyshih.scrabblesolver.dto.BoardSolveRequest;
 import org.dannyshih.scrabblesolver.dto.SolveRequest;
+import org.dannyshih.scrabblesolver.solvers.BatchSolver;
+import org.dannyshih.scrabblesolver.solvers.Board;
+import org.dannyshih.scrabblesolver.solvers.BoardSolver;
+import org.dannyshih.scrabblesolver.solvers.Dictionary;
+import org.dannyshih.scrabblesolver.solvers.DictionaryRegistry;
+import org.dannyshih.scrabblesolver.solvers.Move;
 import org.dannyshih.scrabblesolver.solvers.ParallelSolver;
 import org.dannyshih.scrabblesolver.solvers.SequentialSolver;
+import org.dannyshih.scrabblesolver.solvers.SolveLimits;
+import org.dannyshih.scrabblesolver.solvers.SolveStats;
 import org.dannyshih.scrabblesolver.solvers.Solver;
+import org.dannyshih.scrabblesolver.solvers.TrieWalkSolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.Date;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -34,74 +52,327 @@ public class ScrabbleSolverService {
     private static final String VERSION_RESOURCE = "/version.txt";
     private static final long REAP_PERIOD = 1; // minute
     private static final long DONE_KEEP_DAYS = 7; // days
+    private static final long DONE_KEEP_MILLIS = TimeUnit.DAYS.toMillis(DONE_KEEP_DAYS);
 
     private final Solver sequentialSolver;
     private final Solver parallelSolver;
-    private final ExecutorService executor;
-    private final ConcurrentMap<UUID, Operation> operations;
+    private final Solver trieWalkSolver;
+    private final BoardSolver boardSolver;
+    private final BatchSolver batchSolver;
+    private final DictionaryRegistry dictionaryRegistry;
+    private final ResultCache resultCache;
+    private final ProgressStreams progressStreams;
+    private final int maxSolutions;
+    private final int maxBatchSize;
+    private final SolveScheduler scheduler;
+    private final SolveMetrics solveMetrics;
+    private final OperationRegistry operations;
+    // Finished operations, off the heap. Null if disabled, in which case they stay in operations.
+    private final OperationArchive archive;
 
     @Autowired
-    public ScrabbleSolverService(ScrabbleSolverConfig config) throws IOException {
+    public ScrabbleSolverService(ScrabbleSolverConfig config, MeterRegistry meterRegistry) throws IOException {
         S_LOGGER.info("{}", config);
+        final Map<String, Path> wordLists = new HashMap<>();
+        config.getDictionaries().forEach((name, path) -> wordLists.put(name, Paths.get(path)));
+        this.dictionaryRegistry = new DictionaryRegistry(wordLists,
+                config.getDefaultDictionary() == null ? DictionaryRegistry.BUNDLED : config.getDefaultDictionary());
+        final int parallelism = config.getParallelism() == 0
+                ? Runtime.getRuntime().availableProcessors() : config.getParallelism();
         this.sequentialSolver = new SequentialSolver();
-        this.parallelSolver = new ParallelSolver();
-        this.operations = new ConcurrentHashMap<>();
-        this.executor = Executors.newFixedThreadPool(config.getMaxConcurrentOperations());
+        this.parallelSolver = new ParallelSolver(
+                parallelism,
+                config.getMaxWorkersPerOperation(),
+                config.getPermutationBatchThreshold());
+        this.trieWalkSolver = new TrieWalkSolver();
+        this.boardSolver = new BoardSolver(parallelism);
+        this.batchSolver = new BatchSolver(parallelism);
+        this.resultCache = new ResultCache(config.getResultCacheMaxBytes());
+        this.resultCache.bindTo(meterRegistry);
+        this.progressStreams = new ProgressStreams();
+        this.maxSolutions = config.getMaxSolutions();
+        this.maxBatchSize = config.getMaxBatchSize();
+        this.operations = new OperationRegistry(config.getOperationsMaxBytes(), meterRegistry);
+        this.archive = Strings.isNullOrEmpty(config.getArchiveDirectory()) ? null
+                : new OperationArchive(Paths.get(config.getArchiveDirectory()), config.getArchiveSegmentMaxBytes(),
+                        config.getArchiveCacheMaxBytes());
+        this.scheduler = new SolveScheduler(config.getMaxConcurrentOperations(), config.getMaxQueuedOperations(),
+                config.getMaxQueuedOperationsPerClient(), meterRegistry);
+        this.solveMetrics = new SolveMetrics(meterRegistry, dictionaryRegistry);
 
         ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor();
-        reaper.scheduleAtFixedRate(() -> operations.keySet().forEach(id -> {
-            final Operation op = operations.get(id);
-            if (op != null) {
-                switch (op.progress.getRunStatus()) {
-                    case Canceled:
-                    case Failed:
-                        operations.remove(id);
-                        break;
-                    case Done:
-                        final long ageMs = new Date().getTime() - op.progress.getFinishedDate().getTime();
-                        final long ageDays = TimeUnit.DAYS.convert(ageMs, TimeUnit.MILLISECONDS);
-                        if (ageDays > DONE_KEEP_DAYS) {
-                            operations.remove(id);
-                        }
-                        break;
-                }
+        reaper.scheduleAtFixedRate(() -> {
+            final long now = System.currentTimeMillis();
+            operations.expire(now);
+            if (archive != null) {
+                archive.expire(now - DONE_KEEP_MILLIS);
             }
-        }), REAP_PERIOD, REAP_PERIOD, TimeUnit.MINUTES);
+        }, REAP_PERIOD, REAP_PERIOD, TimeUnit.MINUTES);
     }
 
-    public UUID startSolve(SolveRequest solveRequest) {
+    /**
+     * @param client identifies the client, for its share of the queue and its place in it
+     * @throws IllegalArgumentException if the request names an unknown dictionary or has invalid input
+     * @throws SolveRejectedException if the server is too busy to queue the operation
+     */
+    public UUID startSolve(SolveRequest solveRequest, String client) {
         Preconditions.checkNotNull(solveRequest);
+        // Resolved now, so the operation keeps this version even if the dictionary is reloaded before it runs
+        final Dictionary dictionary = dictionaryRegistry.get(solveRequest.getDictionary());
+        final Solver solver = getSolver(solveRequest);
+        final long cost = solver.estimateCost(
+                dictionary, solveRequest.getInput(), solveRequest.getMinChars(), solveRequest.getMaxChars());
+        // Starts now, so that time spent in the queue counts against the budget
+        final Progress.Ranking ranking = ranking(solveRequest);
+        final SolveLimits limits = SolveLimits.of(
+                timeBudgetMillis(solveRequest), solveRequest.getResultLimit(), ranking);
 
         final UUID operationId = UUID.randomUUID();
         final Operation op = new Operation();
         op.params = solveRequest;
-        op.progress = new Progress();
+        op.progress = newProgress(solveRequest);
         op.isCancellationRequested = new AtomicBoolean();
-        operations.put(operationId, op);
+        operations.add(operationId, op);
+        if (resultCache.complete(solveRequest, dictionary, solver, op.progress)) {
+            S_LOGGER.info("Answered {} from the result cache", operationId);
+            finish(operationId, op);
+            return operationId;
+        }
 
-        executor.submit(() -> {
-            try {
-                final Pattern regex = Pattern.compile(solveRequest.getRegex());
-                (solveRequest.isParallelMode() ? parallelSolver : sequentialSolver).solve(
-                        solveRequest.getInput(),
-                        solveRequest.getMinChars(),
-                        regex,
-                        op.progress,
-                        op.isCancellationRequested);
-
-            } catch (Exception e) {
-                S_LOGGER.error("Error during solve operation: {}", e.getMessage(), e);
-                if (operations.get(operationId) != null) {
-                    operations.get(operationId).progress.finish(e);
+        try {
+            scheduler.submit(client, cost, () -> solve(operationId, op, solver, dictionary, limits));
+        } catch (SolveRejectedException e) {
+            operations.remove(operationId);
+            throw e;
+        }
+
+        return operationId;
+    }
+
+    /**
+     * Solves a batch of racks as one queued operation, and streams back one result per rack as newline-delimited JSON.
+     * Racks are solved together by the batch solver, so a result is sent as soon as the walk of the rack's group ends,
+     * in no particular order. Racks answered from the result cache are sent first.
+     *
+     * Each request's input, length bounds, regex, dictionary, result limit and ranking apply. Its algorithm, parallel
+     * mode, time budget and deadline do not.
+     *
+     * @param client identifies the client, for its share of the queue and its place in it
+     * @throws IllegalArgumentException if the batch is empty or too large, or a request is invalid
+     * @throws SolveRejectedException if the server is too busy to queue the batch
+     */
+    public ResponseBodyEmitter startBatch(List<SolveRequest> solveRequests, String client) {
+        Preconditions.checkArgument(solveRequests != null && !solveRequests.isEmpty(), "A batch needs a request");
+        Preconditions.checkArgument(solveRequests.size() <= maxBatchSize,
+                "A batch may have at most %s requests", maxBatchSize);
+        // Validated and resolved now, so that an invalid request fails the whole batch before anything is sent
+        final List<BatchSolver.Rack> racks = new ArrayList<>(solveRequests.size());
+        long cost = 0L;
+        for (final SolveRequest solveRequest : solveRequests) {
+            Preconditions.checkNotNull(solveRequest, "A batch cannot have a null request");
+            final Dictionary dictionary = dictionaryRegistry.get(solveRequest.getDictionary());
+            racks.add(new BatchSolver.Rack(dictionary, solveRequest.getInput(), solveRequest.getMinChars(),
+                    solveRequest.getMaxChars(), Pattern.compile(solveRequest.getRegex())));
+            cost = LongMath.saturatedAdd(cost, trieWalkSolver.estimateCost(dictionary, solveRequest.getInput(),
+                    solveRequest.getMinChars(), solveRequest.getMaxChars()));
+        }
+
+        // No timeout: the stream ends when the batch does, or is canceled when a send finds the client gone
+        final ResponseBodyEmitter emitter = new ResponseBodyEmitter(0L);
+        final AtomicBoolean isCancellationRequested = new AtomicBoolean();
+        emitter.onError(e -> isCancellationRequested.set(true));
+        scheduler.submit(client, cost, () -> solveBatch(solveRequests, racks, emitter, isCancellationRequested));
+        return emitter;
+    }
+
+    private void solveBatch(List<SolveRequest> solveRequests, List<BatchSolver.Rack> racks, ResponseBodyEmitter emitter,
+                            AtomicBoolean isCancellationRequested) {
+        try {
+            final List<BatchSolver.Rack> uncached = new ArrayList<>();
+            final List<Integer> uncachedIndexes = new ArrayList<>();
+            // The batch walk places blanks as a trie walk does, so its results are cached as the trie walk's
+            for (int i = 0; i < racks.size(); i++) {
+                final Progress progress = newProgress(solveRequests.get(i));
+                final Dictionary dictionary = racks.get(i).getDictionary();
+                if (resultCache.complete(solveRequests.get(i), dictionary, trieWalkSolver, progress)) {
+                    send(emitter, new BatchSolveResult(i, progress.toSerializable()), isCancellationRequested);
+                } else {
+                    uncached.add(racks.get(i));
+                    uncachedIndexes.add(i);
                 }
             }
-        });
 
-        return operationId;
+            batchSolver.solve(uncached, isCancellationRequested, (i, solutions) -> {
+                final int index = uncachedIndexes.get(i);
+                final SolveRequest solveRequest = solveRequests.get(index);
+                // Reported as a trie walk would, since the result is cached as one
+                final Progress progress = newProgress(solveRequest);
+                progress.start(BatchSolver.WORK_PER_RACK);
+                progress.addSolutions(solutions);
+                progress.addNumProcessed(BatchSolver.WORK_PER_RACK);
+                progress.finish();
+                resultCache.put(solveRequest, racks.get(index).getDictionary(), trieWalkSolver, progress);
+                send(emitter, new BatchSolveResult(index, progress.toSerializable()), isCancellationRequested);
+            });
+            emitter.complete();
+        } catch (RuntimeException e) {
+            S_LOGGER.error("Error during batch solve: {}", e.getMessage(), e);
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * Sends one line of a batch's stream. Lines are sent from several workers, so each is sent whole under the lock.
+     */
+    private static void send(ResponseBodyEmitter emitter, BatchSolveResult result,
+                             AtomicBoolean isCancellationRequested) {
+        synchronized (emitter) {
+            try {
+                emitter.send(result, MediaType.APPLICATION_JSON);
+                emitter.send("\n", MediaType.TEXT_PLAIN);
+            } catch (IOException | IllegalStateException e) {
+                // The client is gone, so the rest of the batch would go nowhere
+                isCancellationRequested.set(true);
+            }
+        }
+    }
+
+    private Progress newProgress(SolveRequest solveRequest) {
+        return new Progress(maxSolutions, solveRequest.getResultLimit(), ranking(solveRequest));
+    }
+
+    private static Progress.Ranking ranking(SolveRequest solveRequest) {
+        return solveRequest.getRanking() == null ? Progress.Ranking.Length : solveRequest.getRanking();
+    }
+
+    /**
+     * @return the time the operation has left by its time budget or its deadline, whichever is sooner. 0 for no limit.
+     */
+    private static long timeBudgetMillis(SolveRequest solveRequest) {
+        Preconditions.checkArgument(solveRequest.getTimeBudgetMillis() >= 0L, "Invalid time budget");
+        if (solveRequest.getDeadline() <= 0L) {
+            return solveRequest.getTimeBudgetMillis();
+        }
+
+        // A deadline that has already passed still leaves the operation a moment, so that it ends partial rather than
+        // without a limit
+        final long untilDeadline = Math.max(1L, solveRequest.getDeadline() - System.currentTimeMillis());
+        return solveRequest.getTimeBudgetMillis() == 0L
+                ? untilDeadline : Math.min(untilDeadline, solveRequest.getTimeBudgetMillis());
+    }
+
+    private void solve(UUID operationId, Operation op, Solver solver, Dictionary dictionary, SolveLimits limits) {
+        final SolveRequest solveRequest = op.params;
+        final long start = System.nanoTime();
+        SolveStats stats = null;
+        try {
+            final Pattern regex = Pattern.compile(solveRequest.getRegex());
+            stats = solver.solve(
+                    dictionary,
+                    solveRequest.getInput(),
+                    solveRequest.getMinChars(),
+                    solveRequest.getMaxChars(),
+                    regex,
+                    op.progress,
+                    op.isCancellationRequested,
+                    limits);
+            resultCache.put(solveRequest, dictionary, solver, op.progress);
+        } catch (Exception e) {
+            S_LOGGER.error("Error during solve operation: {}", e.getMessage(), e);
+            if (operations.get(operationId) != null) {
+                operations.get(operationId).progress.finish(e);
+            }
+        }
+
+        solveMetrics.record(solveRequest, op.progress, stats, System.nanoTime() - start);
+        finish(operationId, op);
+    }
+
+    /**
+     * Moves the operation to the archive if it is done. Otherwise, or if the archive cannot take it, it stays in
+     * memory until it expires: a done operation DONE_KEEP_DAYS after it finished, and a failed or canceled one at the
+     * next reaping.
+     */
+    private void finish(UUID operationId, Operation op) {
+        final boolean done = op.progress.getRunStatus() == Progress.RunStatus.Done;
+        if (done && archive != null) {
+            try {
+                archive.put(operationId, op.params, op.progress);
+                operations.remove(operationId);
+                return;
+            } catch (IOException | RuntimeException e) {
+                S_LOGGER.error("Could not archive operation {}: {}", operationId, e.getMessage(), e);
+            }
+        }
+
+        operations.finish(operationId, done
+                ? op.progress.getFinishedDate().getTime() + DONE_KEEP_MILLIS
+                : System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(REAP_PERIOD));
+    }
+
+    private Solver getSolver(SolveRequest solveRequest) {
+        if (solveRequest.getAlgorithm() == SolveRequest.Algorithm.TrieWalk) {
+            return trieWalkSolver;
+        }
+
+        return solveRequest.isParallelMode() ? parallelSolver : sequentialSolver;
     }
 
+    /**
+     * Finds the highest scoring moves for a rack on a board. Runs on the calling thread, with the search of the
+     * board's anchors spread over the board solver's pool, so it is not queued like a rack solve.
+     *
+     * @throws IllegalArgumentException if the request names an unknown dictionary, or has an invalid board or rack
+     */
+    public List<Move> solveBoard(BoardSolveRequest request) {
+        Preconditions.checkNotNull(request);
+        final Dictionary dictionary = dictionaryRegistry.get(request.getDictionary());
+        final Board board = Board.parse(request.getBoard());
+        return boardSolver.solve(dictionary, board, request.getRack(), request.getLimit());
+    }
+
+    /**
+     * @return the operation, from memory while it runs and from the archive once it is done. Null if there is no such
+     *      operation.
+     */
     public Operation getOperation(UUID operationId) {
-        return operations.get(operationId);
+        final Operation op = operations.get(operationId);
+        return op != null || archive == null ? op : archive.get(operationId);
+    }
+
+    /**
+     * @return a tag for the progress response to the query, which changes whenever anything in the operation's
+     *      progress does, other than the elapsed time. For an archived operation it comes from the archive's index,
+     *      without reading the result. Null if there is no such operation.
+     * @param cursor the number of solutions the client already has, or null for all of them
+     * @param limit the number of best solutions asked for, or 0 for all of them
+     */
+    public String getProgressETag(UUID operationId, Integer cursor, int limit) {
+        final Operation op = operations.get(operationId);
+        final String state = op != null
+                ? progressState(op.progress.getRunStatus(), op.progress.getNumSolutions(),
+                        op.progress.getNumProcessed(), op.isCancellationRequested.get())
+                : archive == null ? null : archive.progressState(operationId);
+        // The same progress makes a different body for a different query
+        return state == null ? null : String.format("\"%s-%d-%d\"", state, cursor == null ? 0 : cursor, limit);
+    }
+
+    /**
+     * @return the part of a progress ETag that comes from the operation.
+     */
+    static String progressState(Progress.RunStatus runStatus, int numSolutions, long numProcessed,
+                                boolean isCancellationRequested) {
+        return String.format("%s-%d-%d-%b", runStatus, numSolutions, numProcessed, isCancellationRequested);
+    }
+
+    /**
+     * Opens a stream of server-sent progress events for the operation, or returns null if there is no such operation.
+     *
+     * @param numSolutions how many solutions the client already has
+     */
+    public SseEmitter streamProgress(UUID operationId, int numSolutions) {
+        final Operation op = getOperation(operationId);
+        return op == null ? null : progressStreams.open(op, numSolutions);
     }
 
     public boolean cancelOperation(UUID operationId) {
@@ -110,7 +381,8 @@ public class ScrabbleSolverService {
             op.isCancellationRequested.set(true);
             return true;
         }
-        return false;
+        // Nothing left to cancel
+        return archive != null && archive.contains(operationId);
     }
 
     public Map<UUID, String> getCurrentlyRunningOperations() {
@@ -119,6 +391,23 @@ public class ScrabbleSolverService {
         return result;
     }
 
+    public Collection<Dictionary> getDictionaries() {
+        return dictionaryRegistry.getAll();
+    }
+
+    public String getDefaultDictionaryName() {
+        return dictionaryRegistry.getDefaultName();
+    }
+
+    /**
+     * Loads a new version of the named dictionary and swaps it in. Running operations keep the version they started with.
+     *
+     * @throws IllegalArgumentException if there is no such dictionary
+     */
+    public Dictionary reloadDictionary(String name) throws IOException {
+        return dictionaryRegistry.reload(name);
+    }
+
     public String getAppVersion() {
         InputStream versionResource = Preconditions.checkNotNull(getClass().getResourceAsStream(VERSION_RESOURCE));
         try (InputStreamReader reader = new InputStreamReader(versionResource)) {
@@ -0,0 +1,117 @@
+package org.dannyshih.scrabblesolver.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.dannyshih.scrabblesolver.Progress;
+import org.dannyshih.scrabblesolver.dto.SolveRequest;
+import org.dannyshih.scrabblesolver.solvers.Dictionary;
+import org.dannyshih.scrabblesolver.solvers.DictionaryRegistry;
+import org.dannyshih.scrabblesolver.solvers.SolveStats;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the metrics of finished solve operations, and the memory footprint of the dictionaries.
+ *
+ * Every operation meter is tagged with the mode (Sequential, Parallel or TrieWalk), the rack length and the number of
+ * blanks, since those decide the work a solve does, and publishes a percentile histogram. The solve timer is also
+ * tagged with how the operation ended. Queue wait, and the number of running and queued operations, are recorded by
+ * the SolveScheduler.
+ *
+ * Rack length and blanks come from the request, so they are clamped to a fixed set of tag values; otherwise every new
+ * length a client sent would register another set of meters.
+ *
+ * @author dshih
+ */
+final class SolveMetrics {
+    private static final int MAX_RACK_LENGTH_TAG = 15;
+    private static final int MAX_BLANKS_TAG = 2;
+
+    private final MeterRegistry meterRegistry;
+
+    SolveMetrics(MeterRegistry meterRegistry, DictionaryRegistry dictionaryRegistry) {
+        this.meterRegistry = meterRegistry;
+
+        // Looked up on each read, so a gauge follows its dictionary across reloads
+        for (final Dictionary dictionary : dictionaryRegistry.getAll()) {
+            final String name = dictionary.getName();
+            Gauge.builder("solver.dictionary.size", dictionaryRegistry, r -> r.get(name).getSizeInBytes())
+                    .description("Memory occupied by the dictionary's graph")
+                    .baseUnit("bytes")
+                    .tag("dictionary", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @param stats the work the operation did, or null if it failed
+     * @param nanos how long the solve ran
+     */
+    void record(SolveRequest solveRequest, Progress progress, SolveStats stats, long nanos) {
+        final Tags tags = tags(solveRequest);
+        Timer.builder("solver.solve")
+                .description("Time solve operations ran, excluding queue wait")
+                .tags(tags)
+                .tag("status", progress.getRunStatus().name())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (stats == null) {
+            return;
+        }
+
+        if (stats.getGenerationNanos() > 0L) {
+            Timer.builder("solver.generation")
+                    .description("Time solve operations spent generating combinations")
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(stats.getGenerationNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        summary("solver.nodes.visited", "Prefixes searched per operation", tags, stats.getNodesVisited());
+        summary("solver.prefixes.pruned", "Prefixes not searched below per operation", tags,
+                stats.getPrefixesPruned());
+        summary("solver.leaves.checked", "Complete candidates checked per operation", tags,
+                stats.getLeavesChecked());
+        if (nanos > 0L) {
+            summary("solver.solutions.rate", "Solutions found per second of solving", tags,
+                    progress.getNumSolutions() * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+        }
+    }
+
+    private void summary(String name, String description, Tags tags, double amount) {
+        DistributionSummary.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(amount);
+    }
+
+    private static Tags tags(SolveRequest solveRequest) {
+        final String input = solveRequest.getInput();
+        return Tags.of(
+                "mode", mode(solveRequest),
+                "rackLength", clamp(input.length(), MAX_RACK_LENGTH_TAG),
+                "blanks", clamp(input.chars().filter(c -> c == '*').count(), MAX_BLANKS_TAG));
+    }
+
+    /**
+     * @return the value as a tag, or e.g. "16+" for every value over the max.
+     */
+    private static String clamp(long value, int max) {
+        return value > max ? (max + 1) + "+" : Long.toString(value);
+    }
+
+    private static String mode(SolveRequest solveRequest) {
+        if (solveRequest.getAlgorithm() == SolveRequest.Algorithm.TrieWalk) {
+            return "TrieWalk";
+        }
+
+        return solveRequest.isParallelMode() ? "Parallel" : "Sequential";
+    }
+}
@@ -0,0 +1,22 @@
+package org.dannyshih.scrabblesolver.service;
+
+/**
+ * Thrown when a solve operation is not admitted because the server is too busy to queue it.
+ *
+ * @author dshih
+ */
+public final class SolveRejectedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    SolveRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return how long the client should wait before retrying.
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
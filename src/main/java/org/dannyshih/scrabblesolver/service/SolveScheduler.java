@@ -0,0 +1,194 @@
+package org.dannyshih.scrabblesolver.service;
+
+import com.google.common.base.Preconditions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits solve operations into a bounded queue and runs them, at most maxRunning at a time.
+ *
+ * An operation is rejected when the queue is full, or when its client already has its share of the queue. Queued
+ * operations are not run in arrival order: the next to run is the one with the lowest priority value, which is the
+ * order of magnitude of its estimated cost, so a small rack is not stuck behind large ones. The value drops by one for
+ * every AGING_PERIOD an operation waits, so a large rack is not starved either, and rises by CLIENT_PENALTY for every
+ * operation its client already has running, so a freed slot goes to a client with fewer operations running.
+ *
+ * Fairness only applies to queued operations. On an idle server, a client's operations run as soon as they are
+ * submitted, and one client can take every free slot.
+ *
+ * Operations are dispatched by the thread that submits or finishes one, so no thread waits on the queue.
+ *
+ * @author dshih
+ */
+final class SolveScheduler {
+    private static final Logger S_LOGGER = LoggerFactory.getLogger(SolveScheduler.class);
+    private static final long AGING_PERIOD = TimeUnit.SECONDS.toNanos(5);
+    private static final int CLIENT_PENALTY = 4;
+    private static final long DEFAULT_RETRY_AFTER = 5; // seconds, until there is a run time to estimate from
+    private static final double RUN_TIME_WEIGHT = 0.2; // of the latest run in the average run time
+
+    private final int maxRunning;
+    private final int maxQueued;
+    private final int maxQueuedPerClient;
+    private final ExecutorService executor;
+    private final Timer waitTimer;
+    private final Counter queueFullCounter;
+    private final Counter clientLimitCounter;
+
+    // Guarded by this
+    private final List<Job> queue;
+    private final Map<String, Integer> queuedByClient;
+    private final Map<String, Integer> runningByClient;
+    private int numRunning;
+    private long sequence;
+    private double averageRunMillis;
+
+    SolveScheduler(int maxRunning, int maxQueued, int maxQueuedPerClient, MeterRegistry meterRegistry) {
+        Preconditions.checkArgument(maxRunning > 0);
+        Preconditions.checkArgument(maxQueued >= 0);
+        Preconditions.checkArgument(maxQueuedPerClient > 0);
+        this.maxRunning = maxRunning;
+        this.maxQueued = maxQueued;
+        this.maxQueuedPerClient = maxQueuedPerClient;
+        this.executor = Executors.newFixedThreadPool(maxRunning);
+        this.queue = new ArrayList<>();
+        this.queuedByClient = new HashMap<>();
+        this.runningByClient = new HashMap<>();
+
+        Gauge.builder("solver.queue.size", this, SolveScheduler::queueSize)
+                .description("Solve operations waiting to run")
+                .register(meterRegistry);
+        Gauge.builder("solver.running", this, SolveScheduler::runningSize)
+                .description("Solve operations running")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("solver.queue.wait")
+                .description("Time solve operations waited in the queue")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.queueFullCounter = Counter.builder("solver.rejected")
+                .description("Solve operations rejected at admission")
+                .tag("reason", "queueFull")
+                .register(meterRegistry);
+        this.clientLimitCounter = Counter.builder("solver.rejected")
+                .description("Solve operations rejected at admission")
+                .tag("reason", "clientLimit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the task, and runs it as soon as it is next.
+     *
+     * @param client identifies the client, for fairness
+     * @param cost the estimated cost of the task
+     * @throws SolveRejectedException if the queue is full, or the client has its share of it
+     */
+    synchronized void submit(String client, long cost, Runnable task) {
+        if (queue.size() >= maxQueued && numRunning >= maxRunning) {
+            queueFullCounter.increment();
+            throw new SolveRejectedException("Too many queued operations", retryAfter());
+        }
+
+        if (queuedByClient.getOrDefault(client, 0) >= maxQueuedPerClient) {
+            clientLimitCounter.increment();
+            throw new SolveRejectedException("Too many queued operations for this client", retryAfter());
+        }
+
+        queue.add(new Job(client, 64 - Long.numberOfLeadingZeros(Math.max(cost, 1L)), task, sequence++));
+        queuedByClient.merge(client, 1, Integer::sum);
+        dispatch();
+    }
+
+    private synchronized int queueSize() {
+        return queue.size();
+    }
+
+    private synchronized int runningSize() {
+        return numRunning;
+    }
+
+    /**
+     * @return seconds until a slot is likely to be free, estimated from the average run time.
+     */
+    private long retryAfter() {
+        if (averageRunMillis == 0.0) {
+            return DEFAULT_RETRY_AFTER;
+        }
+
+        final double millis = averageRunMillis * (queue.size() + 1) / maxRunning;
+        return Math.max(1L, (long) Math.ceil(millis / 1000.0));
+    }
+
+    private void dispatch() {
+        while (numRunning < maxRunning && !queue.isEmpty()) {
+            final long now = System.nanoTime();
+            Job next = null;
+            long nextPriority = Long.MAX_VALUE;
+            for (final Job job : queue) {
+                final long priority = job.costClass - (now - job.queued) / AGING_PERIOD
+                        + (long) CLIENT_PENALTY * runningByClient.getOrDefault(job.client, 0);
+                if (priority < nextPriority || (priority == nextPriority && job.sequence < next.sequence)) {
+                    next = job;
+                    nextPriority = priority;
+                }
+            }
+
+            queue.remove(next);
+            queuedByClient.merge(next.client, -1, Integer::sum);
+            queuedByClient.remove(next.client, 0);
+            runningByClient.merge(next.client, 1, Integer::sum);
+            numRunning++;
+            waitTimer.record(now - next.queued, TimeUnit.NANOSECONDS);
+
+            final Job job = next;
+            executor.execute(() -> run(job));
+        }
+    }
+
+    private void run(Job job) {
+        final long start = System.nanoTime();
+        try {
+            job.task.run();
+        } catch (RuntimeException e) {
+            S_LOGGER.error("SolveScheduler :: error running operation: {}", e.getMessage(), e);
+        } finally {
+            finished(job, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    private synchronized void finished(Job job, long runMillis) {
+        averageRunMillis = averageRunMillis == 0.0
+                ? runMillis : RUN_TIME_WEIGHT * runMillis + (1.0 - RUN_TIME_WEIGHT) * averageRunMillis;
+        runningByClient.merge(job.client, -1, Integer::sum);
+        runningByClient.remove(job.client, 0);
+        numRunning--;
+        dispatch();
+    }
+
+    private static final class Job {
+        private final String client;
+        private final int costClass;
+        private final Runnable task;
+        private final long sequence;
+        private final long queued;
+
+        Job(String client, int costClass, Runnable task, long sequence) {
+            this.client = client;
+            this.costClass = costClass;
+            this.task = task;
+            this.sequence = sequence;
+            this.queued = System.nanoTime();
+        }
+    }
+}
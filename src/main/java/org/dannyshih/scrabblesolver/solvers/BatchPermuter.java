@@ -1,51 +1,122 @@
 package org.dannyshih.scrabblesolver.solvers;
 
 import com.google.common.base.Stopwatch;
-import com.google.common.collect.ImmutableList;
 
-import java.util.List;
-import java.util.concurrent.ForkJoinTask;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Spliterator;
 import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.TimeUnit;
 
 /**
- * A RecursiveAction class that permutes a collection of strings.
- * If the collection size is less than a threshold, permute the collection directly.
- * Otherwise, divide the collection in half and process in parallel.
+ * A RecursiveAction class that permutes a stream of combinations.
+ * The root task pulls batches from a lazily generated spliterator, sized by the BatchSizer from measured batch times.
+ * Each batch is forked while other workers are idle enough to steal it and the operation's lease allows another worker,
+ * and is otherwise permuted directly, so generation never runs far ahead of the workers and one operation cannot take
+ * over the pool.
  *
  * @author dshih
  */
 final class BatchPermuter extends RecursiveAction {
-    private static final String THRESHOLD_PROP = "SCRABBLE_SOLVER_PERMUTATION_BATCH_THRESHOLD";
-    private static final int DEFAULT_THRESHOLD = 200;
+    private static final int MAX_SURPLUS_TASKS = 3;
 
-    private final List<StringBuilder> m_combinations;
+    private final Spliterator<StringBuilder> m_combinations;
+    // Only set on the root task, which generates the batches
+    private final CombinationSpliterator m_generator;
     private final SolveOperationState m_state;
-    private final int m_threshold;
+    private final WorkerLease m_lease;
+    private final BatchSizer m_sizer;
 
-    BatchPermuter(List<StringBuilder> combinations, SolveOperationState state) {
+    BatchPermuter(CombinationSpliterator combinations, SolveOperationState state, WorkerLease lease, BatchSizer sizer) {
+        this(combinations, combinations, state, lease, sizer);
+    }
+
+    private BatchPermuter(
+            Spliterator<StringBuilder> combinations,
+            CombinationSpliterator generator,
+            SolveOperationState state,
+            WorkerLease lease,
+            BatchSizer sizer) {
         m_combinations = combinations;
+        m_generator = generator;
         m_state = state;
-        m_threshold = System.getenv(THRESHOLD_PROP) == null ?
-                DEFAULT_THRESHOLD : Integer.parseInt(System.getenv(THRESHOLD_PROP));
+        m_lease = lease;
+        m_sizer = sizer;
     }
 
     @Override
     protected void compute() {
-        if (m_combinations.size() < m_threshold) {
-            final Stopwatch sw = Stopwatch.createStarted();
-            long numSmallPermsProcessed = 0;
-            for (final StringBuilder combination : m_combinations) {
-                numSmallPermsProcessed += Utils.permute(combination, 0, m_state);
+        if (m_generator == null) {
+            try {
+                permute(m_combinations);
+            } finally {
+                m_lease.release();
+            }
+
+            return;
+        }
+
+        final Deque<BatchPermuter> forked = new ArrayDeque<>();
+        Spliterator<StringBuilder> batch;
+        try {
+            while (true) {
+                m_generator.setBatchSize(m_sizer.batchSize());
+                if ((batch = m_generator.trySplit()) == null) {
+                    break;
+                }
+
+                joinDone(forked);
+                if (getSurplusQueuedTaskCount() < MAX_SURPLUS_TASKS && m_lease.tryAcquire()) {
+                    final BatchPermuter task = new BatchPermuter(batch, null, m_state, m_lease, m_sizer);
+                    task.fork();
+                    forked.push(task);
+                } else {
+                    permute(batch);
+                }
+            }
+        } finally {
+            // Forked batches are waited for even when stopping early, so that none adds solutions after the operation
+            // ends
+            forked.forEach(BatchPermuter::quietlyJoin);
+        }
+
+        while (!forked.isEmpty()) {
+            forked.pop().join();
+        }
+    }
+
+    /**
+     * Joins and drops the forked batches that are done, so that only the batches in flight are held, not every batch
+     * of the operation.
+     */
+    private static void joinDone(Deque<BatchPermuter> forked) {
+        for (final Iterator<BatchPermuter> it = forked.iterator(); it.hasNext(); ) {
+            final BatchPermuter task = it.next();
+            if (task.isDone()) {
+                it.remove();
+                task.join();
             }
+        }
+    }
 
-            m_state.progress.addNumProcessed(numSmallPermsProcessed);
-            m_state.opTimes.add(sw.stop().elapsed(TimeUnit.MILLISECONDS));
-        } else {
-            final int midIdx = (m_combinations.size() - 1) / 2;
-            ForkJoinTask.invokeAll(ImmutableList.of(
-                    new BatchPermuter(m_combinations.subList(0, midIdx), m_state),
-                    new BatchPermuter(m_combinations.subList(midIdx, m_combinations.size()), m_state)));
+    private void permute(Spliterator<StringBuilder> combinations) {
+        final Stopwatch sw = Stopwatch.createStarted();
+        final PermutationKernel kernel = new PermutationKernel(m_state, m_lease);
+        // Permutations processed, and combinations permuted
+        final long[] counts = new long[2];
+        try {
+            combinations.forEachRemaining(combination -> {
+                counts[0] += kernel.permute(combination);
+                counts[1]++;
+            });
+        } finally {
+            kernel.flush();
         }
+
+        m_state.progress.addNumProcessed(counts[0]);
+        final long nanos = sw.stop().elapsed(TimeUnit.NANOSECONDS);
+        m_sizer.record(counts[1], nanos);
+        m_state.opTimes.record(TimeUnit.NANOSECONDS.toMillis(nanos));
     }
-}
\ No newline at end of file
+}
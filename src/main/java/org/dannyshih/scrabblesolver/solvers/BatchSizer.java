@@ -0,0 +1,45 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tunes the number of combinations per batch from measured batch times, so that a batch takes about TARGET_BATCH_TIME
+ * whatever the rack, regex and machine. Short batches keep workers balanced at the end of an operation; long enough
+ * batches keep the cost of forking them negligible.
+ *
+ * @author dshih
+ */
+final class BatchSizer {
+    private static final long TARGET_BATCH_TIME = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int MAX_BATCH_SIZE = 1 << 16;
+    private static final double WEIGHT = 0.25; // of the latest batch in the average time per combination
+
+    private int m_batchSize;
+    private double m_nanosPerCombination;
+
+    /**
+     * @param initialBatchSize the batch size until a batch has been measured
+     */
+    BatchSizer(int initialBatchSize) {
+        Preconditions.checkArgument(initialBatchSize > 0);
+        m_batchSize = initialBatchSize;
+    }
+
+    synchronized int batchSize() {
+        return m_batchSize;
+    }
+
+    synchronized void record(long numCombinations, long nanos) {
+        if (numCombinations == 0L) {
+            return;
+        }
+
+        final double nanosPerCombination = (double) nanos / numCombinations;
+        m_nanosPerCombination = m_nanosPerCombination == 0.0
+                ? nanosPerCombination : WEIGHT * nanosPerCombination + (1.0 - WEIGHT) * m_nanosPerCombination;
+        m_batchSize = (int) Math.max(1L,
+                Math.min(MAX_BATCH_SIZE, (long) (TARGET_BATCH_TIME / Math.max(m_nanosPerCombination, 1.0))));
+    }
+}
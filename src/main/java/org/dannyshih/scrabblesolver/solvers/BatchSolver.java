@@ -0,0 +1,352 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * Solves many racks together, walking the dictionary once per group of up to 64 racks instead of once per rack.
+ *
+ * Identical racks, with the same letters in any order, the same length bounds, regex and dictionary, are solved once.
+ * The rest are grouped by dictionary and regex, sorted by their letters so that racks sharing most of their letters
+ * land in the same group, and cut into groups of 64. Each group is one walk, like the TrieWalkSolver's, that carries a
+ * 64-bit mask of the racks that can still spell the current prefix instead of a count of the letters left in one rack.
+ * A prefix the dictionary, the regex or every rack in the group rules out is pruned for all of them at once, and a
+ * prefix shared by many racks is visited once. Groups are walked in parallel on a pool owned by the solver.
+ *
+ * As in a trie walk, real tiles are preferred over blanks: the nth copy of a letter in a word is played with a blank
+ * only if the rack has fewer than n of it.
+ *
+ * @author dshih
+ */
+public final class BatchSolver {
+    public static final int RACKS_PER_WALK = Long.SIZE;
+    // The work of solving one rack, in the units a trie walk reports it in: one per first letter of the dictionary
+    public static final int WORK_PER_RACK = Dawg.ALPHABET_SIZE;
+
+    private static final Logger S_LOGGER = LoggerFactory.getLogger(BatchSolver.class);
+    private static final int CHECK_INTERVAL = (1 << 12) - 1; // nodes, as a mask
+
+    private final ForkJoinPool m_pool;
+
+    public BatchSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism the number of pool workers
+     */
+    public BatchSolver(int parallelism) {
+        Preconditions.checkArgument(parallelism > 0);
+        m_pool = SolverPools.newPool("batch-solver-", parallelism);
+    }
+
+    /**
+     * Solves every rack, blocking until all are solved or the batch is canceled.
+     *
+     * @param onSolved called with the index of each rack and its solutions in played form, as soon as the walk of its
+     *      group ends. Called from the pool's workers, concurrently for racks of different groups.
+     * @return the work done, also when the batch was canceled
+     */
+    public SolveStats solve(
+            List<Rack> racks, AtomicBoolean isCancellationRequested, BiConsumer<Integer, List<String>> onSolved) {
+        Preconditions.checkNotNull(racks);
+        Preconditions.checkNotNull(isCancellationRequested);
+        Preconditions.checkNotNull(onSolved);
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+
+        // Rack -> the indexes of the requests for it
+        final Map<Rack, List<Integer>> distinct = new LinkedHashMap<>();
+        for (int i = 0; i < racks.size(); i++) {
+            distinct.computeIfAbsent(racks.get(i), rack -> new ArrayList<>()).add(i);
+        }
+
+        final Map<List<Object>, List<Rack>> byWalk = new LinkedHashMap<>();
+        for (final Rack rack : distinct.keySet()) {
+            byWalk.computeIfAbsent(
+                    Arrays.asList(rack.m_dictionary, rack.m_regex.pattern(), rack.m_regex.flags()),
+                    key -> new ArrayList<>()).add(rack);
+        }
+
+        final SolveStats stats = new SolveStats();
+        final List<ForkJoinTask<?>> walks = new ArrayList<>();
+        for (final List<Rack> similar : byWalk.values()) {
+            similar.sort(Comparator.comparing((Rack rack) -> rack.m_letters)
+                    .thenComparingInt(rack -> rack.m_maxLength));
+            for (int from = 0; from < similar.size(); from += RACKS_PER_WALK) {
+                final List<Rack> group = similar.subList(from, Math.min(from + RACKS_PER_WALK, similar.size()));
+                walks.add(m_pool.submit(() -> {
+                    final SharedWalk walk = new SharedWalk(group, isCancellationRequested);
+                    try {
+                        walk.walk(walk.m_dictionary.root(), walk.m_automaton.start(), 0);
+                    } catch (CancellationException e) {
+                        return;
+                    } finally {
+                        stats.add(walk.m_numVisited, walk.m_numPruned, walk.m_numLeaves);
+                    }
+
+                    for (int i = 0; i < group.size(); i++) {
+                        for (final int index : distinct.get(group.get(i))) {
+                            onSolved.accept(index, walk.m_solutions.get(i));
+                        }
+                    }
+                }));
+            }
+        }
+
+        walks.forEach(ForkJoinTask::join);
+        S_LOGGER.info("BatchSolver :: {} racks, {} distinct, in {} walks - {} nodes, {}{}", racks.size(),
+                distinct.size(), walks.size(), stats.getNodesVisited(), stopwatch,
+                isCancellationRequested.get() ? ", canceled" : "");
+        return stats;
+    }
+
+    /**
+     * A rack to solve as part of a batch. Racks are equal if they would have the same solutions.
+     */
+    public static final class Rack {
+        private final Dictionary m_dictionary;
+        private final String m_input;
+        // The rack's tiles in sorted order, blanks first
+        private final String m_letters;
+        private final int m_minCharacters;
+        private final int m_maxLength;
+        private final Pattern m_regex;
+
+        /**
+         * @param maxCharacters the length of the longest solutions to find, or 0 for no maximum
+         * @throws IllegalArgumentException if the input has invalid characters
+         */
+        public Rack(Dictionary dictionary, String input, int minCharacters, int maxCharacters, Pattern regex) {
+            Preconditions.checkNotNull(dictionary);
+            Preconditions.checkNotNull(regex);
+            Preconditions.checkArgument(StringUtils.isNotBlank(input));
+            Preconditions.checkArgument(maxCharacters >= 0);
+            for (int i = 0; i < input.length(); i++) {
+                final char c = input.charAt(i);
+                Preconditions.checkArgument(c == '*' || (c >= 'A' && c <= 'Z'), "Invalid input character: %s", c);
+            }
+
+            final char[] sorted = input.toCharArray();
+            Arrays.sort(sorted);
+            m_dictionary = dictionary;
+            m_input = input;
+            m_letters = new String(sorted);
+            m_minCharacters = minCharacters;
+            m_maxLength = Solver.maxLength(input, maxCharacters);
+            m_regex = regex;
+        }
+
+        public Dictionary getDictionary() {
+            return m_dictionary;
+        }
+
+        public String getInput() {
+            return m_input;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Rack)) {
+                return false;
+            }
+
+            final Rack other = (Rack) o;
+            return m_dictionary == other.m_dictionary
+                    && m_letters.equals(other.m_letters)
+                    && Math.max(m_minCharacters, 1) == Math.max(other.m_minCharacters, 1)
+                    && m_maxLength == other.m_maxLength
+                    && m_regex.pattern().equals(other.m_regex.pattern())
+                    && m_regex.flags() == other.m_regex.flags();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(m_letters, Math.max(m_minCharacters, 1), m_maxLength, m_regex.pattern());
+        }
+    }
+
+    /**
+     * One walk of the dictionary for a group of racks sharing a dictionary and a regex.
+     *
+     * The letters of the current prefix are counted once for the whole group. For each rack, what matters is its
+     * deficit: how many of the prefix's letters it has no real tile for, and so must play with blanks. m_levels[depth]
+     * holds one mask per deficit, of the racks with that deficit at that depth, and a rack drops out of every mask once
+     * its deficit exceeds its blanks, or the prefix outgrows its maximum length or can no longer reach its minimum.
+     */
+    private static final class SharedWalk {
+        private final Dawg m_dictionary;
+        private final RegexAutomaton m_automaton;
+        private final Pattern m_regex;
+        private final AtomicBoolean m_isCancellationRequested;
+        private final int m_maxLength;
+        private final int[][] m_counts;
+        // [letter][n] -> the racks with at least n of the letter
+        private final long[][] m_atLeast;
+        // [n] -> the racks with at least n blanks
+        private final long[] m_blanksAtLeast;
+        // [length] -> the racks whose minimum length is at most it, and those whose maximum length is at least it
+        private final long[] m_minWithin;
+        private final long[] m_maxWithin;
+        private final long[][] m_levels;
+        private final int[] m_used;
+        private final char[] m_word;
+        private final List<List<String>> m_solutions;
+        private long m_numVisited;
+        private long m_numPruned;
+        private long m_numLeaves;
+
+        SharedWalk(List<Rack> racks, AtomicBoolean isCancellationRequested) {
+            final Rack first = racks.get(0);
+            m_dictionary = first.m_dictionary.dawg();
+            m_automaton = RegexAutomaton.compile(first.m_regex);
+            m_regex = first.m_regex;
+            m_isCancellationRequested = isCancellationRequested;
+            m_maxLength = racks.stream().mapToInt(rack -> rack.m_maxLength).max().orElse(0);
+            final int maxBlanks = racks.stream().mapToInt(rack -> StringUtils.countMatches(rack.m_letters, '*'))
+                    .max().orElse(0);
+
+            // Sized for the longest rack, which may have more of a letter than its maximum length allows to play
+            final int maxTiles = racks.stream().mapToInt(rack -> rack.m_letters.length()).max().orElse(0);
+            m_counts = new int[racks.size()][Dawg.ALPHABET_SIZE];
+            m_atLeast = new long[Dawg.ALPHABET_SIZE][maxTiles + 1];
+            m_blanksAtLeast = new long[maxBlanks + 1];
+            m_minWithin = new long[m_maxLength + 1];
+            m_maxWithin = new long[m_maxLength + 1];
+            m_solutions = new ArrayList<>(racks.size());
+            for (int i = 0; i < racks.size(); i++) {
+                final Rack rack = racks.get(i);
+                final long bit = 1L << i;
+                int numBlanks = 0;
+                for (int j = 0; j < rack.m_letters.length(); j++) {
+                    final char c = rack.m_letters.charAt(j);
+                    if (c == '*') {
+                        numBlanks++;
+                    } else {
+                        m_atLeast[c - 'A'][++m_counts[i][c - 'A']] |= bit;
+                    }
+                }
+
+                for (int n = 0; n <= numBlanks; n++) {
+                    m_blanksAtLeast[n] |= bit;
+                }
+
+                for (int length = 0; length <= m_maxLength; length++) {
+                    m_minWithin[length] |= length >= rack.m_minCharacters ? bit : 0L;
+                    m_maxWithin[length] |= length <= rack.m_maxLength ? bit : 0L;
+                }
+
+                m_solutions.add(new ArrayList<>());
+            }
+
+            // A rack with n of a letter also has at least every fewer number of it
+            for (final long[] atLeast : m_atLeast) {
+                for (int n = atLeast.length - 2; n > 0; n--) {
+                    atLeast[n] |= atLeast[n + 1];
+                }
+            }
+
+            m_levels = new long[m_maxLength + 1][maxBlanks + 1];
+            m_levels[0][0] = racks.size() == RACKS_PER_WALK ? -1L : (1L << racks.size()) - 1;
+            m_used = new int[Dawg.ALPHABET_SIZE];
+            m_word = new char[m_maxLength];
+        }
+
+        void walk(int node, int regexState, int depth) {
+            if ((++m_numVisited & CHECK_INTERVAL) == 0 && m_isCancellationRequested.get()) {
+                throw new CancellationException();
+            }
+
+            // Racks that need longer words than any below the node drop out
+            final long reachable = m_minWithin[(int) Math.min((long) depth + m_dictionary.maxDepth(node), m_maxLength)];
+            final long[] levels = m_levels[depth];
+            long alive = 0L;
+            for (int deficit = 0; deficit < levels.length; deficit++) {
+                levels[deficit] &= reachable;
+                alive |= levels[deficit];
+            }
+
+            if (alive == 0L) {
+                m_numPruned++;
+                return;
+            }
+
+            if (depth > 0 && m_dictionary.isTerminal(node) && m_automaton.accepts(regexState)) {
+                m_numLeaves++;
+                final long solved = alive & m_minWithin[depth];
+                if (solved != 0L) {
+                    emit(depth, solved);
+                }
+            }
+
+            if (depth == m_maxLength) {
+                return;
+            }
+
+            final int childMask = m_dictionary.childMask(node);
+            final int mask = childMask & m_automaton.letterMask(regexState);
+            m_numPruned += Integer.bitCount(childMask) - Integer.bitCount(mask);
+            final long[] next = m_levels[depth + 1];
+            final long fits = m_maxWithin[depth + 1];
+            for (int remaining = mask; remaining != 0; remaining &= remaining - 1) {
+                final int letter = Integer.numberOfTrailingZeros(remaining);
+                final int used = ++m_used[letter];
+                // Racks with a real tile left for the letter keep their deficit, and the rest spend a blank on it
+                final long hasTile = m_atLeast[letter][used];
+                long any = next[0] = levels[0] & hasTile & fits;
+                for (int deficit = 1; deficit < next.length; deficit++) {
+                    next[deficit] = ((levels[deficit] & hasTile) | (levels[deficit - 1] & ~hasTile))
+                            & m_blanksAtLeast[deficit] & fits;
+                    any |= next[deficit];
+                }
+
+                if (any != 0L) {
+                    m_word[depth] = (char) ('A' + letter);
+                    walk(m_dictionary.child(node, letter), m_automaton.step(regexState, letter), depth + 1);
+                } else {
+                    m_numPruned++;
+                }
+
+                m_used[letter]--;
+            }
+        }
+
+        private void emit(int length, long racks) {
+            final String word = new String(m_word, 0, length);
+            if (!m_automaton.isExact() && !m_regex.matcher(word).matches()) {
+                return;
+            }
+
+            final int[] copy = new int[Dawg.ALPHABET_SIZE];
+            for (long remaining = racks; remaining != 0L; remaining &= remaining - 1) {
+                final int rack = Long.numberOfTrailingZeros(remaining);
+                Arrays.fill(copy, 0);
+                final char[] played = word.toCharArray();
+                for (int i = 0; i < length; i++) {
+                    final int letter = played[i] - 'A';
+                    if (++copy[letter] > m_counts[rack][letter]) {
+                        played[i] = Character.toLowerCase(played[i]);
+                    }
+                }
+
+                m_solutions.get(rack).add(new String(played));
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable 15x15 Scrabble board, with the standard layout of premium squares.
+ *
+ * Rows are parsed from strings of 15 characters, where '.', '-' and ' ' are empty squares, uppercase letters are tiles
+ * and lowercase letters are blanks that were played as that letter.
+ *
+ * @author dshih
+ */
+public final class Board {
+    public static final int SIZE = 15;
+    static final char EMPTY = '.';
+
+    // T triples the word, D doubles it, t triples the letter and d doubles it. The layout is symmetric about both
+    // diagonals, so it reads the same for Down moves on the transposed board.
+    private static final String[] S_PREMIUMS = {
+            "T..d...T...d..T",
+            ".D...t...t...D.",
+            "..D...d.d...D..",
+            "d..D...d...D..d",
+            "....D.....D....",
+            ".t...t...t...t.",
+            "..d...d.d...d..",
+            "T..d...D...d..T",
+            "..d...d.d...d..",
+            ".t...t...t...t.",
+            "....D.....D....",
+            "d..D...d...D..d",
+            "..D...d.d...D..",
+            ".D...t...t...D.",
+            "T..d...T...d..T"
+    };
+
+    private final char[][] m_squares;
+
+    private Board(char[][] squares) {
+        m_squares = squares;
+    }
+
+    /**
+     * @throws IllegalArgumentException if there are not 15 rows of 15 squares, or a square is not empty or a letter.
+     */
+    public static Board parse(List<String> rows) {
+        Preconditions.checkArgument(rows != null && rows.size() == SIZE, "A board must have %s rows", SIZE);
+        final char[][] squares = new char[SIZE][SIZE];
+        for (int row = 0; row < SIZE; row++) {
+            final String line = rows.get(row);
+            Preconditions.checkArgument(line != null && line.length() == SIZE,
+                    "Row %s must have %s squares", row + 1, SIZE);
+            for (int col = 0; col < SIZE; col++) {
+                final char c = line.charAt(col);
+                if (c == '.' || c == '-' || c == ' ') {
+                    squares[row][col] = EMPTY;
+                } else {
+                    Preconditions.checkArgument((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z'),
+                            "Invalid square '%s' in row %s", c, row + 1);
+                    squares[row][col] = c;
+                }
+            }
+        }
+
+        return new Board(squares);
+    }
+
+    public static Board empty() {
+        final char[][] squares = new char[SIZE][SIZE];
+        for (final char[] row : squares) {
+            Arrays.fill(row, EMPTY);
+        }
+
+        return new Board(squares);
+    }
+
+    /**
+     * @return the tile on the square, in played form, or '.' if the square is empty.
+     */
+    public char get(int row, int col) {
+        return m_squares[row][col];
+    }
+
+    public boolean isEmpty(int row, int col) {
+        return m_squares[row][col] == EMPTY;
+    }
+
+    /**
+     * @return whether no tile has been played yet.
+     */
+    public boolean isEmpty() {
+        for (final char[] row : m_squares) {
+            for (final char square : row) {
+                if (square != EMPTY) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    static int letterMultiplier(int row, int col) {
+        switch (S_PREMIUMS[row].charAt(col)) {
+            case 't':
+                return 3;
+            case 'd':
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    static int wordMultiplier(int row, int col) {
+        switch (S_PREMIUMS[row].charAt(col)) {
+            case 'T':
+                return 3;
+            case 'D':
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * @return the board reflected about its main diagonal, so that columns read as rows.
+     */
+    Board transpose() {
+        final char[][] squares = new char[SIZE][SIZE];
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                squares[col][row] = m_squares[row][col];
+            }
+        }
+
+        return new Board(squares);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        for (final char[] row : m_squares) {
+            sb.append(row).append('\n');
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,147 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds the best moves for a rack on a board: every legal placement of its tiles, in either direction, ranked by
+ * score. Moves are generated from a GADDAG of the dictionary, and the anchors of both directions are searched in
+ * parallel on a pool owned by the solver.
+ *
+ * @author dshih
+ */
+public final class BoardSolver {
+    private static final Logger S_LOGGER = LoggerFactory.getLogger(BoardSolver.class);
+    private static final Comparator<Move> S_BEST_FIRST = Comparator.comparingInt(Move::getScore).reversed()
+            .thenComparing(Move::getWord)
+            .thenComparingInt(Move::getRow)
+            .thenComparingInt(Move::getCol)
+            .thenComparing(Move::getDirection);
+
+    private final ForkJoinPool m_pool;
+
+    public BoardSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism the number of pool workers
+     */
+    public BoardSolver(int parallelism) {
+        Preconditions.checkArgument(parallelism > 0);
+        m_pool = SolverPools.newPool("board-solver-", parallelism);
+    }
+
+    /**
+     * @param rack up to 7 tiles, uppercase letters and '*' for blanks
+     * @param limit the maximum number of moves to return, the highest scoring. 0 for all of them.
+     * @return the moves, highest scoring first
+     * @throws IllegalArgumentException if the rack is invalid
+     */
+    public List<Move> solve(Dictionary dictionary, Board board, String rack, int limit) {
+        Preconditions.checkNotNull(dictionary);
+        Preconditions.checkNotNull(board);
+        Preconditions.checkArgument(limit >= 0, "Invalid limit");
+        final int[] tiles = parseRack(rack);
+
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        final List<Anchor> anchors = new ArrayList<>();
+        for (final Move.Direction direction : Move.Direction.values()) {
+            final MoveGenerator generator = new MoveGenerator(dictionary, board, direction);
+            generator.anchors().forEach(anchor -> anchors.add(new Anchor(generator, anchor[0], anchor[1])));
+        }
+
+        final List<Move> moves = m_pool.invoke(new AnchorSearch(anchors, 0, anchors.size(), tiles, limit));
+        S_LOGGER.info("BoardSolver :: rack {}, {} anchors, {} moves in {}", rack, anchors.size(), moves.size(),
+                stopwatch);
+        return moves;
+    }
+
+    /**
+     * @return the number of tiles of each letter, with blanks at MoveGenerator.BLANK.
+     */
+    private static int[] parseRack(String rack) {
+        Preconditions.checkArgument(rack != null && !rack.isEmpty() && rack.length() <= MoveGenerator.RACK_SIZE,
+                "A rack must have 1 to %s tiles", MoveGenerator.RACK_SIZE);
+        final int[] tiles = new int[Dawg.ALPHABET_SIZE + 1];
+        for (int i = 0; i < rack.length(); i++) {
+            final char c = rack.charAt(i);
+            Preconditions.checkArgument(c == '*' || (c >= 'A' && c <= 'Z'), "Invalid tile '%s'", c);
+            tiles[c == '*' ? MoveGenerator.BLANK : c - 'A']++;
+        }
+
+        return tiles;
+    }
+
+    /**
+     * @return the moves sorted best first, and cut to the limit.
+     */
+    private static List<Move> best(List<Move> moves, int limit) {
+        moves.sort(S_BEST_FIRST);
+        if (limit > 0 && moves.size() > limit) {
+            moves.subList(limit, moves.size()).clear();
+        }
+
+        return moves;
+    }
+
+    private static final class Anchor {
+        final MoveGenerator generator;
+        final int row;
+        final int col;
+
+        Anchor(MoveGenerator generator, int row, int col) {
+            this.generator = generator;
+            this.row = row;
+            this.col = col;
+        }
+    }
+
+    /**
+     * Searches a range of anchors, splitting it in half until each task searches one. Every task returns only its best
+     * moves, so no more than the limit per task are held while merging.
+     */
+    private static final class AnchorSearch extends RecursiveTask<List<Move>> {
+        private final List<Anchor> m_anchors;
+        private final int m_from;
+        private final int m_to;
+        private final int[] m_rack;
+        private final int m_limit;
+
+        AnchorSearch(List<Anchor> anchors, int from, int to, int[] rack, int limit) {
+            m_anchors = anchors;
+            m_from = from;
+            m_to = to;
+            m_rack = rack;
+            m_limit = limit;
+        }
+
+        @Override
+        protected List<Move> compute() {
+            if (m_to - m_from <= 1) {
+                final List<Move> moves = new ArrayList<>();
+                if (m_to > m_from) {
+                    final Anchor anchor = m_anchors.get(m_from);
+                    anchor.generator.generate(anchor.row, anchor.col, m_rack, moves);
+                }
+
+                return best(moves, m_limit);
+            }
+
+            final int middle = (m_from + m_to) >>> 1;
+            final AnchorSearch left = new AnchorSearch(m_anchors, m_from, middle, m_rack, m_limit);
+            left.fork();
+            final List<Move> moves = new AnchorSearch(m_anchors, middle, m_to, m_rack, m_limit).compute();
+            moves.addAll(left.join());
+            return best(moves, m_limit);
+        }
+    }
+}
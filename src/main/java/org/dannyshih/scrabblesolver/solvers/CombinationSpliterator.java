@@ -0,0 +1,238 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import com.google.common.base.Preconditions;
+import com.google.common.math.LongMath;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * A Spliterator that lazily generates every distinct letter multiset that can be drawn from the input, with each blank
+ * standing for any letter. A multiset is emitted once no matter how many ways the input can produce it, so repeated
+ * letters and blanks never cause duplicate work. Each multiset is emitted as a new StringBuilder of its letters, with
+ * letters that blanks stand for in lowercase. Real tiles are used before blanks.
+ *
+ * Only multisets whose size is within the given length bounds are emitted; the odometer never grows a multiset past
+ * the maximum, and skips over those that are too small without building them.
+ *
+ * Multisets are enumerated as an odometer over per-letter counts, so nothing is materialized up front. trySplit()
+ * hands out the next batch of multisets, which lets workers start while generation is still going.
+ *
+ * @author dshih
+ */
+final class CombinationSpliterator implements Spliterator<StringBuilder> {
+    static final int DEFAULT_BATCH_SIZE = 200;
+
+    // The letters that may appear in a multiset, and how many real tiles of each the input has
+    private final int[] m_letters;
+    private final int[] m_available;
+    private final int m_numBlanks;
+    private final int m_minLength;
+    private final int m_maxLength;
+    private int m_batchSize;
+    private final long m_totalPermutations;
+
+    // The current multiset, as a count per entry of m_letters
+    private final int[] m_counts;
+    private int m_length;
+    private int m_blanksUsed;
+    private long m_remaining;
+    private long m_generationNanos;
+
+    CombinationSpliterator(String input, int minLength, int maxLength) {
+        this(input, minLength, maxLength, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param minLength the size of the smallest multisets to generate
+     * @param maxLength the size of the largest multisets to generate
+     */
+    CombinationSpliterator(String input, int minLength, int maxLength, int batchSize) {
+        Preconditions.checkArgument(batchSize > 0);
+        final int[] available = new int[Dawg.ALPHABET_SIZE];
+        int numBlanks = 0;
+        for (int i = 0; i < input.length(); i++) {
+            final char c = input.charAt(i);
+            Preconditions.checkArgument(c == '*' || (c >= 'A' && c <= 'Z'), "Invalid input character: %s", c);
+            if (c == '*') {
+                numBlanks++;
+            } else {
+                available[c - 'A']++;
+            }
+        }
+
+        int numLetters = 0;
+        for (int letter = 0; letter < Dawg.ALPHABET_SIZE; letter++) {
+            if (available[letter] > 0 || numBlanks > 0) {
+                numLetters++;
+            }
+        }
+
+        m_letters = new int[numLetters];
+        m_available = new int[numLetters];
+        for (int letter = 0, i = 0; letter < Dawg.ALPHABET_SIZE; letter++) {
+            if (available[letter] > 0 || numBlanks > 0) {
+                m_letters[i] = letter;
+                m_available[i++] = available[letter];
+            }
+        }
+
+        m_numBlanks = numBlanks;
+        m_minLength = Math.max(1, minLength);
+        m_maxLength = Math.min(maxLength, input.length());
+        m_batchSize = batchSize;
+        m_counts = new int[numLetters];
+
+        final long[] numByLength = countByLength(m_available, m_numBlanks, input.length());
+        long totalPermutations = 0L;
+        for (int length = m_minLength; length <= m_maxLength; length++) {
+            m_remaining += numByLength[length];
+            totalPermutations = LongMath.checkedAdd(totalPermutations,
+                    LongMath.checkedMultiply(numByLength[length], LongMath.factorial(length)));
+        }
+
+        m_totalPermutations = totalPermutations;
+    }
+
+    /**
+     * Sets the number of combinations in the batches that trySplit() returns from now on.
+     */
+    void setBatchSize(int batchSize) {
+        Preconditions.checkArgument(batchSize > 0);
+        m_batchSize = batchSize;
+    }
+
+    /**
+     * @return the time spent generating the combinations pulled so far.
+     */
+    long generationNanos() {
+        return m_generationNanos;
+    }
+
+    /**
+     * @return the total number of permutations of all multisets this generates.
+     */
+    long totalPermutations() {
+        return m_totalPermutations;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super StringBuilder> action) {
+        final long start = System.nanoTime();
+        final StringBuilder combination = next();
+        m_generationNanos += System.nanoTime() - start;
+        if (combination == null) {
+            return false;
+        }
+
+        action.accept(combination);
+        return true;
+    }
+
+    @Override
+    public Spliterator<StringBuilder> trySplit() {
+        final long start = System.nanoTime();
+        final StringBuilder[] batch = new StringBuilder[(int) Math.min(m_batchSize, m_remaining)];
+        int size = 0;
+        StringBuilder combination;
+        while (size < batch.length && (combination = next()) != null) {
+            batch[size++] = combination;
+        }
+
+        m_generationNanos += System.nanoTime() - start;
+
+        return size == 0 ? null : Spliterators.spliterator(batch, 0, size, characteristics());
+    }
+
+    @Override
+    public long estimateSize() {
+        return m_remaining;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL | DISTINCT;
+    }
+
+    private StringBuilder next() {
+        do {
+            if (!advance()) {
+                return null;
+            }
+        } while (m_length < m_minLength);
+
+        m_remaining--;
+        final StringBuilder combination = new StringBuilder(m_length);
+        for (int i = 0; i < m_letters.length; i++) {
+            for (int j = 0; j < m_counts[i]; j++) {
+                combination.append((char) ((j < m_available[i] ? 'A' : 'a') + m_letters[i]));
+            }
+        }
+
+        return combination;
+    }
+
+    /**
+     * Moves to the next multiset, incrementing the last letter that can still grow and resetting every letter after
+     * it. A letter can grow while the multiset is below the maximum length, and it has real tiles left or there are
+     * blanks left to stand for it.
+     */
+    private boolean advance() {
+        for (int i = m_letters.length - 1; i >= 0; i--) {
+            if (m_length < m_maxLength && m_counts[i] < m_available[i]) {
+                m_counts[i]++;
+                m_length++;
+                return true;
+            }
+
+            if (m_length < m_maxLength && m_blanksUsed < m_numBlanks) {
+                m_counts[i]++;
+                m_length++;
+                m_blanksUsed++;
+                return true;
+            }
+
+            m_length -= m_counts[i];
+            m_blanksUsed -= Math.max(0, m_counts[i] - m_available[i]);
+            m_counts[i] = 0;
+        }
+
+        return false;
+    }
+
+    /**
+     * Counts the distinct multisets of each length, by dynamic programming over letters and blanks used.
+     */
+    private static long[] countByLength(int[] available, int numBlanks, int maxLength) {
+        // counts[blanksUsed][length], over the letters considered so far
+        long[][] counts = new long[numBlanks + 1][maxLength + 1];
+        counts[0][0] = 1L;
+        for (final int numAvailable : available) {
+            final long[][] next = new long[numBlanks + 1][maxLength + 1];
+            for (int blanksUsed = 0; blanksUsed <= numBlanks; blanksUsed++) {
+                for (int length = 0; length <= maxLength; length++) {
+                    if (counts[blanksUsed][length] == 0L) {
+                        continue;
+                    }
+
+                    for (int n = 0; n <= numAvailable + numBlanks - blanksUsed && length + n <= maxLength; n++) {
+                        final int nextBlanksUsed = blanksUsed + Math.max(0, n - numAvailable);
+                        next[nextBlanksUsed][length + n] += counts[blanksUsed][length];
+                    }
+                }
+            }
+
+            counts = next;
+        }
+
+        final long[] numByLength = new long[maxLength + 1];
+        for (final long[] byLength : counts) {
+            for (int length = 0; length <= maxLength; length++) {
+                numByLength[length] += byLength[length];
+            }
+        }
+
+        return numByLength;
+    }
+}
@@ -0,0 +1,367 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import com.google.common.base.Preconditions;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only, minimized directed acyclic word graph (DAWG) that supports only methods needed for this application.
+ *
+ * Nodes are packed into flat long and int buffers, backed by arrays or by a mapped image. Each node is a single long
+ * holding the length of the longest word suffix below it, a 26-bit child mask, a terminal flag and the offset of its
+ * first edge. The edges of a node are stored contiguously in letter order, so the child for a letter is found with one
+ * mask test and one bit count: no boxing, no hashing and no per-node objects.
+ *
+ * The packed arrays can be written out as a versioned binary image and read back directly from a (memory-mapped)
+ * buffer, with no deserialization. The image is a header of six little-endian ints (magic, format version, number of
+ * nodes, number of edges, root node, number of words) followed by the nodes as longs and the edges as ints.
+ *
+ * @author dshih
+ */
+final class Dawg {
+    static final int NONE = -1;
+    static final int ALPHABET_SIZE = 26;
+
+    private static final int ALL_LETTERS = (1 << ALPHABET_SIZE) - 1;
+    private static final int FLAGS_SHIFT = 32;
+    private static final int TERMINAL_FLAG = 1 << ALPHABET_SIZE;
+    private static final int DEPTH_SHIFT = 59;
+    private static final int MAX_STORED_DEPTH = (1 << (Long.SIZE - DEPTH_SHIFT)) - 1;
+
+    private static final int IMAGE_MAGIC = 0x44415747; // "DAWG"
+    private static final int IMAGE_FORMAT_VERSION = 2;
+    private static final int IMAGE_HEADER_SIZE = 6 * Integer.BYTES;
+    private static final ByteOrder IMAGE_BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final LongBuffer m_nodes;
+    private final IntBuffer m_edges;
+    private final int m_root;
+    private final int m_numWords;
+
+    private Dawg(LongBuffer nodes, IntBuffer edges, int root, int numWords) {
+        m_nodes = nodes;
+        m_edges = edges;
+        m_root = root;
+        m_numWords = numWords;
+    }
+
+    /**
+     * Reads a DAWG directly from an image written by writeTo(). The buffer is used as is, not copied.
+     *
+     * @throws IOException if the buffer does not hold an image of the current format version
+     */
+    static Dawg read(ByteBuffer image) throws IOException {
+        final ByteBuffer header = image.duplicate().order(IMAGE_BYTE_ORDER);
+        if (header.remaining() < IMAGE_HEADER_SIZE || header.getInt() != IMAGE_MAGIC) {
+            throw new IOException("Not a dictionary image");
+        }
+
+        final int formatVersion = header.getInt();
+        if (formatVersion != IMAGE_FORMAT_VERSION) {
+            throw new IOException(String.format(
+                    "Dictionary image format version %d, expected %d", formatVersion, IMAGE_FORMAT_VERSION));
+        }
+
+        final int numNodes = header.getInt();
+        final int numEdges = header.getInt();
+        final int root = header.getInt();
+        final int numWords = header.getInt();
+        final int nodesSize = numNodes * Long.BYTES;
+        if (header.remaining() != nodesSize + numEdges * Integer.BYTES) {
+            throw new IOException("Truncated dictionary image");
+        }
+
+        final int start = image.position() + IMAGE_HEADER_SIZE;
+        return new Dawg(
+                image.slice(start, nodesSize).order(IMAGE_BYTE_ORDER).asLongBuffer(),
+                image.slice(start + nodesSize, numEdges * Integer.BYTES).order(IMAGE_BYTE_ORDER).asIntBuffer(),
+                root,
+                numWords);
+    }
+
+    void writeTo(WritableByteChannel channel) throws IOException {
+        final ByteBuffer image = ByteBuffer.allocate(
+                IMAGE_HEADER_SIZE + numNodes() * Long.BYTES + numEdges() * Integer.BYTES).order(IMAGE_BYTE_ORDER);
+        image.putInt(IMAGE_MAGIC)
+                .putInt(IMAGE_FORMAT_VERSION)
+                .putInt(numNodes())
+                .putInt(numEdges())
+                .putInt(m_root)
+                .putInt(m_numWords);
+        for (int i = 0; i < numNodes(); i++) {
+            image.putLong(m_nodes.get(i));
+        }
+
+        for (int i = 0; i < numEdges(); i++) {
+            image.putInt(m_edges.get(i));
+        }
+
+        image.flip();
+        while (image.hasRemaining()) {
+            channel.write(image);
+        }
+    }
+
+    int root() {
+        return m_root;
+    }
+
+    int numNodes() {
+        return m_nodes.limit();
+    }
+
+    int numEdges() {
+        return m_edges.limit();
+    }
+
+    int numWords() {
+        return m_numWords;
+    }
+
+    /**
+     * @return the size of the node and edge arrays, which is also the size of the image less its header.
+     */
+    long sizeInBytes() {
+        return (long) numNodes() * Long.BYTES + (long) numEdges() * Integer.BYTES;
+    }
+
+    /**
+     * @return the node reached from the given node by the letter (0 for 'A'), or NONE if there is no such edge.
+     */
+    int child(int node, int letter) {
+        final long packed = m_nodes.get(node);
+        final int mask = (int) (packed >>> FLAGS_SHIFT) & ALL_LETTERS;
+        final int bit = 1 << letter;
+        if ((mask & bit) == 0) {
+            return NONE;
+        }
+
+        return m_edges.get((int) packed + Integer.bitCount(mask & (bit - 1)));
+    }
+
+    /**
+     * @return a bitmask of the letters (bit 0 for 'A') that have an edge out of the given node.
+     */
+    int childMask(int node) {
+        return (int) (m_nodes.get(node) >>> FLAGS_SHIFT) & ALL_LETTERS;
+    }
+
+    boolean isTerminal(int node) {
+        return ((int) (m_nodes.get(node) >>> FLAGS_SHIFT) & TERMINAL_FLAG) != 0;
+    }
+
+    /**
+     * @return the number of letters in the longest word suffix below the node (0 if the node ends a word but has no
+     * children), or Integer.MAX_VALUE if that is longer than can be stored. A search that needs more letters than this
+     * below the node can skip it.
+     */
+    int maxDepth(int node) {
+        final int depth = (int) (m_nodes.get(node) >>> DEPTH_SHIFT);
+        return depth == MAX_STORED_DEPTH ? Integer.MAX_VALUE : depth;
+    }
+
+    /**
+     * @return every word, in sorted order.
+     */
+    List<String> words() {
+        final List<String> words = new ArrayList<>(m_numWords);
+        collectWords(m_root, new StringBuilder(), words);
+        return words;
+    }
+
+    private void collectWords(int node, StringBuilder prefix, List<String> words) {
+        if (isTerminal(node)) {
+            words.add(prefix.toString());
+        }
+
+        for (int remaining = childMask(node); remaining != 0; remaining &= remaining - 1) {
+            final int letter = Integer.numberOfTrailingZeros(remaining);
+            prefix.append((char) ('A' + letter));
+            collectWords(child(node, letter), prefix, words);
+            prefix.setLength(prefix.length() - 1);
+        }
+    }
+
+    /**
+     * Is the string a prefix to a valid word? "ATTR" should return true, because "ATTRIBUTE" is a word.
+     */
+    boolean beginsWord(String s) {
+        return findFinalNode(s) != NONE;
+    }
+
+    boolean isWord(String s) {
+        final int finalNode = findFinalNode(s);
+        return finalNode != NONE && isTerminal(finalNode);
+    }
+
+    private int findFinalNode(String s) {
+        Preconditions.checkNotNull(s);
+        int current = m_root;
+        for (int i = 0; i < s.length() && current != NONE; i++) {
+            final int letter = s.charAt(i) - 'A';
+            current = letter >= 0 && letter < ALPHABET_SIZE ? child(current, letter) : NONE;
+        }
+
+        return current;
+    }
+
+    /**
+     * Builds a minimized DAWG from words added in sorted order, using the incremental algorithm of Daciuk et al.
+     * Only the nodes on the path of the most recently added word are mutable; everything behind it has already been
+     * merged with its equivalent and written to the packed arrays.
+     */
+    static final class Builder {
+        private final Map<Signature, Integer> m_register;
+        private final List<PendingNode> m_path;
+        private long[] m_nodes;
+        private int[] m_edges;
+        private int m_numNodes;
+        private int m_numEdges;
+        private int m_numWords;
+        private String m_previous;
+
+        Builder() {
+            m_register = new HashMap<>();
+            m_path = new ArrayList<>();
+            m_path.add(new PendingNode());
+            m_nodes = new long[1 << 16];
+            m_edges = new int[1 << 16];
+            m_previous = "";
+        }
+
+        void addWord(String s) {
+            Preconditions.checkArgument(StringUtils.isNotBlank(s));
+            Preconditions.checkArgument(s.compareTo(m_previous) > 0, "Words must be added in sorted order: %s", s);
+            Preconditions.checkState(m_path.size() > 0, "Builder has already been used");
+
+            int common = 0;
+            while (common < s.length() && common < m_previous.length() && s.charAt(common) == m_previous.charAt(common)) {
+                common++;
+            }
+
+            freezePath(common);
+            for (int i = common; i < s.length(); i++) {
+                Preconditions.checkArgument(s.charAt(i) >= 'A' && s.charAt(i) <= 'Z', "Not an uppercase word: %s", s);
+                m_path.add(new PendingNode());
+            }
+
+            m_path.get(s.length()).terminal = true;
+            m_previous = s;
+            m_numWords++;
+        }
+
+        Dawg build() {
+            Preconditions.checkState(m_path.size() > 0, "Builder has already been used");
+            freezePath(0);
+            final int root = register(m_path.remove(0));
+            return new Dawg(
+                    LongBuffer.wrap(Arrays.copyOf(m_nodes, m_numNodes)),
+                    IntBuffer.wrap(Arrays.copyOf(m_edges, m_numEdges)),
+                    root,
+                    m_numWords);
+        }
+
+        /**
+         * Registers every pending node deeper than the given depth, attaching each to its parent on the path.
+         */
+        private void freezePath(int depth) {
+            while (m_path.size() - 1 > depth) {
+                final PendingNode node = m_path.remove(m_path.size() - 1);
+                final int parentDepth = m_path.size() - 1;
+                m_path.get(parentDepth).setChild(m_previous.charAt(parentDepth) - 'A', register(node));
+            }
+        }
+
+        private int register(PendingNode node) {
+            final Signature signature = node.signature();
+            final Integer existing = m_register.get(signature);
+            if (existing != null) {
+                return existing;
+            }
+
+            if (m_numNodes == m_nodes.length) {
+                m_nodes = Arrays.copyOf(m_nodes, m_nodes.length * 2);
+            }
+
+            final int numChildren = signature.values.length - 1;
+            if (m_numEdges + numChildren > m_edges.length) {
+                m_edges = Arrays.copyOf(m_edges, Math.max(m_edges.length * 2, m_numEdges + numChildren));
+            }
+
+            // Children are always registered first, so their depths are known
+            int depth = 0;
+            for (int i = 1; i < signature.values.length; i++) {
+                final int childDepth = (int) (m_nodes[signature.values[i]] >>> DEPTH_SHIFT);
+                depth = Math.max(depth, Math.min(childDepth + 1, MAX_STORED_DEPTH));
+            }
+
+            System.arraycopy(signature.values, 1, m_edges, m_numEdges, numChildren);
+            m_nodes[m_numNodes] = ((long) depth << DEPTH_SHIFT)
+                    | ((long) signature.values[0] << FLAGS_SHIFT)
+                    | m_numEdges;
+            m_numEdges += numChildren;
+            m_register.put(signature, m_numNodes);
+            return m_numNodes++;
+        }
+    }
+
+    private static final class PendingNode {
+        final int[] children;
+        int mask;
+        boolean terminal;
+
+        PendingNode() {
+            children = new int[ALPHABET_SIZE];
+        }
+
+        void setChild(int letter, int node) {
+            mask |= 1 << letter;
+            children[letter] = node;
+        }
+
+        Signature signature() {
+            final int[] values = new int[1 + Integer.bitCount(mask)];
+            values[0] = mask | (terminal ? TERMINAL_FLAG : 0);
+            int i = 1;
+            for (int remaining = mask; remaining != 0; remaining &= remaining - 1) {
+                values[i++] = children[Integer.numberOfTrailingZeros(remaining)];
+            }
+
+            return new Signature(values);
+        }
+    }
+
+    /**
+     * The flags of a node followed by its child node ids. Two nodes with equal signatures accept the same suffixes.
+     */
+    private static final class Signature {
+        final int[] values;
+        final int hash;
+
+        Signature(int[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Signature && Arrays.equals(values, ((Signature) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An immutable, versioned word list, shared by all solvers. Operations hold on to the Dictionary they started with,
+ * so swapping a new version into the registry never affects them.
+ *
+ * @author dshih
+ */
+public final class Dictionary {
+    private static final Logger S_LOGGER = LoggerFactory.getLogger(Dictionary.class);
+
+    private final String m_name;
+    private final long m_version;
+    private final Dawg m_dawg;
+    // Only board solves need it, so it is built on first use
+    private final Supplier<Gaddag> m_gaddag;
+
+    Dictionary(String name, long version, Dawg dawg) {
+        m_name = name;
+        m_version = version;
+        m_dawg = dawg;
+        m_gaddag = Suppliers.memoize(this::buildGaddag);
+    }
+
+    public String getName() {
+        return m_name;
+    }
+
+    /**
+     * @return a version that is unique across all dictionaries loaded by the registry, and increases with each load.
+     */
+    public long getVersion() {
+        return m_version;
+    }
+
+    public int getNumWords() {
+        return m_dawg.numWords();
+    }
+
+    /**
+     * @return the memory the dictionary's graph occupies, on or off the heap.
+     */
+    public long getSizeInBytes() {
+        return m_dawg.sizeInBytes();
+    }
+
+    Dawg dawg() {
+        return m_dawg;
+    }
+
+    Gaddag gaddag() {
+        return m_gaddag.get();
+    }
+
+    private Gaddag buildGaddag() {
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        final Gaddag gaddag = Gaddag.of(m_dawg);
+        S_LOGGER.info("Dictionary :: built the GADDAG of {} with {} nodes in {}", this, gaddag.numNodes(), stopwatch);
+        return gaddag;
+    }
+
+    @Override
+    public String toString() {
+        return m_name + " v" + m_version;
+    }
+}
@@ -0,0 +1,56 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import com.google.common.base.Preconditions;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compiles a sorted word list into a binary dictionary image at build time, so the solvers can map it at startup
+ * instead of parsing the word list.
+ *
+ * Usage: DictionaryCompiler <word list> <image>
+ *
+ * @author dshih
+ */
+public final class DictionaryCompiler {
+    private DictionaryCompiler() {}
+
+    public static void main(String[] args) throws IOException {
+        Preconditions.checkArgument(args.length == 2, "Usage: DictionaryCompiler <word list> <image>");
+        final Path wordList = Paths.get(args[0]);
+        final Path image = Paths.get(args[1]);
+
+        final Dawg.Builder builder = new Dawg.Builder();
+        try (BufferedReader br = Files.newBufferedReader(wordList, StandardCharsets.US_ASCII)) {
+            br.lines().forEach(builder::addWord);
+        }
+
+        final Dawg dictionary = builder.build();
+        final Path directory = image.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        // Written beside the image and moved over it, so a server that has the old image mapped keeps reading the old
+        // file, and a reload maps the new one. Rewriting the image in place would change the pages under the server.
+        final Path temp = Files.createTempFile(directory, image.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                dictionary.writeTo(channel);
+                channel.force(true);
+            }
+
+            Files.move(temp, image, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        System.out.printf("Compiled %d words into %d nodes and %d edges: %s%n",
+                dictionary.numWords(), dictionary.numNodes(), dictionary.numEdges(), image);
+    }
+}
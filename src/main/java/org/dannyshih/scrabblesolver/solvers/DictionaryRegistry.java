@@ -0,0 +1,186 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The named dictionaries shared by all solvers.
+ *
+ * The bundled word list is always available as BUNDLED. Additional word lists are loaded from the filesystem, either
+ * as plain text (one word per line) or as an image compiled by DictionaryCompiler. The set of dictionaries is an
+ * immutable map that is replaced copy-on-write, so reloading a dictionary is atomic and operations already running
+ * keep the version they started with.
+ *
+ * @author dshih
+ */
+public final class DictionaryRegistry {
+    public static final String BUNDLED = "default";
+
+    private static final Logger S_LOGGER = LoggerFactory.getLogger(DictionaryRegistry.class);
+    private static final String DICTIONARY_RESOURCE = "/dictionary.txt";
+    private static final String DICTIONARY_IMAGE_RESOURCE = "/dictionary.dawg";
+    private static final String IMAGE_EXTENSION = ".dawg";
+
+    private final ImmutableMap<String, Path> m_sources;
+    private final String m_defaultName;
+    private final AtomicLong m_nextVersion;
+    private final AtomicReference<ImmutableMap<String, Dictionary>> m_dictionaries;
+
+    /**
+     * Creates a registry with only the bundled dictionary.
+     */
+    public DictionaryRegistry() throws IOException {
+        this(ImmutableMap.of(), BUNDLED);
+    }
+
+    /**
+     * @param wordLists additional word lists by name. A word list named BUNDLED replaces the bundled one.
+     * @param defaultName the dictionary used by requests that do not name one
+     */
+    public DictionaryRegistry(Map<String, Path> wordLists, String defaultName) throws IOException {
+        Preconditions.checkArgument(BUNDLED.equals(defaultName) || wordLists.containsKey(defaultName),
+                "Unknown default dictionary: %s", defaultName);
+        m_sources = ImmutableMap.copyOf(wordLists);
+        m_defaultName = defaultName;
+        m_nextVersion = new AtomicLong(1L);
+
+        final ImmutableMap.Builder<String, Dictionary> dictionaries = ImmutableMap.builder();
+        if (!m_sources.containsKey(BUNDLED)) {
+            dictionaries.put(BUNDLED, load(BUNDLED));
+        }
+
+        for (final String name : m_sources.keySet()) {
+            dictionaries.put(name, load(name));
+        }
+
+        m_dictionaries = new AtomicReference<>(dictionaries.build());
+    }
+
+    /**
+     * @param name the dictionary name, or null/blank for the default dictionary
+     * @throws IllegalArgumentException if there is no such dictionary
+     */
+    public Dictionary get(String name) {
+        final Dictionary dictionary = m_dictionaries.get().get(StringUtils.isBlank(name) ? m_defaultName : name);
+        Preconditions.checkArgument(dictionary != null, "Unknown dictionary: %s", name);
+        return dictionary;
+    }
+
+    public Collection<Dictionary> getAll() {
+        return m_dictionaries.get().values();
+    }
+
+    public String getDefaultName() {
+        return m_defaultName;
+    }
+
+    /**
+     * Loads a new version of the dictionary from its source and swaps it in.
+     *
+     * @throws IllegalArgumentException if there is no such dictionary
+     */
+    public synchronized Dictionary reload(String name) throws IOException {
+        Preconditions.checkArgument(m_dictionaries.get().containsKey(name), "Unknown dictionary: %s", name);
+        final Dictionary dictionary = load(name);
+        m_dictionaries.updateAndGet(current -> ImmutableMap.<String, Dictionary>builder()
+                .putAll(current)
+                .put(name, dictionary)
+                .buildKeepingLast());
+        return dictionary;
+    }
+
+    private Dictionary load(String name) throws IOException {
+        final Path source = m_sources.get(name);
+        final Dawg dawg = source == null ? loadBundled() : loadFile(source);
+        final Dictionary dictionary = new Dictionary(name, m_nextVersion.getAndIncrement(), dawg);
+        S_LOGGER.info("DictionaryRegistry :: loaded {} from {} - {} words, {} nodes, {} edges",
+                dictionary, source == null ? "bundled resources" : source,
+                dawg.numWords(), dawg.numNodes(), dawg.numEdges());
+        return dictionary;
+    }
+
+    /**
+     * Maps the dictionary image compiled at build time. Falls back to building the dictionary from the word list if
+     * there is no usable image, e.g. when running from an IDE that does not run the Gradle build.
+     */
+    private Dawg loadBundled() throws IOException {
+        final URL image = getClass().getResource(DICTIONARY_IMAGE_RESOURCE);
+        if (image != null) {
+            try {
+                return Dawg.read(mapResource(image));
+            } catch (IOException e) {
+                S_LOGGER.warn("DictionaryRegistry :: unusable dictionary image {}, building from word list", image, e);
+            }
+        }
+
+        InputStream in = Preconditions.checkNotNull(getClass().getResourceAsStream(DICTIONARY_RESOURCE));
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII))) {
+            return build(br);
+        }
+    }
+
+    private static Dawg loadFile(Path source) throws IOException {
+        if (source.getFileName().toString().endsWith(IMAGE_EXTENSION)) {
+            try (FileChannel channel = FileChannel.open(source)) {
+                return Dawg.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+
+        try (BufferedReader br = Files.newBufferedReader(source, StandardCharsets.US_ASCII)) {
+            return build(br);
+        }
+    }
+
+    /**
+     * Builds a dictionary from a word list, which need not be sorted or uppercase. Lines that are not words are skipped.
+     */
+    private static Dawg build(BufferedReader wordList) {
+        final Dawg.Builder builder = new Dawg.Builder();
+        wordList.lines()
+                .map(line -> line.trim().toUpperCase(Locale.ROOT))
+                .filter(word -> !word.isEmpty() && word.chars().allMatch(c -> c >= 'A' && c <= 'Z'))
+                .sorted()
+                .distinct()
+                .forEach(builder::addWord);
+        return builder.build();
+    }
+
+    /**
+     * Memory-maps a file resource. Resources inside an archive cannot be mapped, so they are read into a direct buffer.
+     */
+    private static ByteBuffer mapResource(URL resource) throws IOException {
+        if ("file".equals(resource.getProtocol())) {
+            try (FileChannel channel = FileChannel.open(Paths.get(resource.toURI()))) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+
+        try (InputStream in = resource.openStream()) {
+            final byte[] bytes = in.readAllBytes();
+            return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only, minimized GADDAG (Gordon, 1994), for generating moves on a board outward from a square in the middle of
+ * the word.
+ *
+ * For every word and every split of it into a non-empty prefix x and a suffix y, the GADDAG accepts the reversed
+ * prefix, then a separator, then the suffix: REV(x) SEPARATOR y. When y is empty the separator is left out, so REV(w)
+ * alone is accepted for the whole word w. A search starting on an anchor square therefore reads letters leftward from
+ * the anchor, crosses the separator once, and reads the rest of the word rightward from just past the anchor.
+ *
+ * Nodes are packed like those of a Dawg, into a flat long array holding a 27-bit child mask (26 letters and the
+ * separator), a terminal flag and the offset of the node's first edge, with its edges stored contiguously in symbol
+ * order in an int array.
+ *
+ * @author dshih
+ */
+final class Gaddag {
+    static final int NONE = -1;
+    static final int SEPARATOR = Dawg.ALPHABET_SIZE;
+
+    private static final int NUM_SYMBOLS = Dawg.ALPHABET_SIZE + 1;
+    private static final int ALL_SYMBOLS = (1 << NUM_SYMBOLS) - 1;
+    private static final int FLAGS_SHIFT = 32;
+    private static final int TERMINAL_FLAG = 1 << NUM_SYMBOLS;
+    // Sorts right after 'Z', so strings sort in symbol order
+    private static final char SEPARATOR_CHAR = (char) ('A' + SEPARATOR);
+
+    private final long[] m_nodes;
+    private final int[] m_edges;
+    private final int m_root;
+
+    private Gaddag(long[] nodes, int[] edges, int root) {
+        m_nodes = nodes;
+        m_edges = edges;
+        m_root = root;
+    }
+
+    /**
+     * Builds the GADDAG of every word in the DAWG. The strings of the GADDAG are generated and added a first letter at
+     * a time, so that only about a twenty-sixth of them are held in memory at once.
+     */
+    static Gaddag of(Dawg dawg) {
+        final List<String> words = dawg.words();
+        final Builder builder = new Builder();
+        final char[] buffer = new char[words.stream().mapToInt(String::length).max().orElse(0) + 1];
+        for (char first = 'A'; first <= 'Z'; first++) {
+            final List<String> strings = new ArrayList<>();
+            for (final String word : words) {
+                // Splits after position i, so that the reversed prefix starts with the letter at i
+                for (int i = 0; i < word.length(); i++) {
+                    if (word.charAt(i) != first) {
+                        continue;
+                    }
+
+                    int length = 0;
+                    for (int j = i; j >= 0; j--) {
+                        buffer[length++] = word.charAt(j);
+                    }
+
+                    if (i + 1 < word.length()) {
+                        buffer[length++] = SEPARATOR_CHAR;
+                        for (int j = i + 1; j < word.length(); j++) {
+                            buffer[length++] = word.charAt(j);
+                        }
+                    }
+
+                    strings.add(new String(buffer, 0, length));
+                }
+            }
+
+            strings.sort(null);
+            strings.forEach(builder::add);
+        }
+
+        return builder.build();
+    }
+
+    int root() {
+        return m_root;
+    }
+
+    int numNodes() {
+        return m_nodes.length;
+    }
+
+    long sizeInBytes() {
+        return (long) m_nodes.length * Long.BYTES + (long) m_edges.length * Integer.BYTES;
+    }
+
+    /**
+     * @return the node reached from the given node by the symbol (0 for 'A', or SEPARATOR), or NONE if there is no
+     *      such edge.
+     */
+    int child(int node, int symbol) {
+        final long packed = m_nodes[node];
+        final int mask = (int) (packed >>> FLAGS_SHIFT) & ALL_SYMBOLS;
+        final int bit = 1 << symbol;
+        if ((mask & bit) == 0) {
+            return NONE;
+        }
+
+        return m_edges[(int) packed + Integer.bitCount(mask & (bit - 1))];
+    }
+
+    /**
+     * @return a bitmask of the letters (bit 0 for 'A') that have an edge out of the given node, without the separator.
+     */
+    int letterMask(int node) {
+        return (int) (m_nodes[node] >>> FLAGS_SHIFT) & ((1 << SEPARATOR) - 1);
+    }
+
+    boolean isTerminal(int node) {
+        return ((int) (m_nodes[node] >>> FLAGS_SHIFT) & TERMINAL_FLAG) != 0;
+    }
+
+    /**
+     * Builds a minimized GADDAG from strings added in sorted order, with the incremental algorithm that builds a Dawg.
+     */
+    private static final class Builder {
+        private final Map<Signature, Integer> m_register;
+        private final List<PendingNode> m_path;
+        private long[] m_nodes;
+        private int[] m_edges;
+        private int m_numNodes;
+        private int m_numEdges;
+        private String m_previous;
+
+        Builder() {
+            m_register = new HashMap<>();
+            m_path = new ArrayList<>();
+            m_path.add(new PendingNode());
+            m_nodes = new long[1 << 16];
+            m_edges = new int[1 << 16];
+            m_previous = "";
+        }
+
+        void add(String s) {
+            Preconditions.checkArgument(s.compareTo(m_previous) > 0, "Strings must be added in sorted order: %s", s);
+            int common = 0;
+            final int maxCommon = Math.min(s.length(), m_previous.length());
+            while (common < maxCommon && s.charAt(common) == m_previous.charAt(common)) {
+                common++;
+            }
+
+            freezePath(common);
+            for (int i = common; i < s.length(); i++) {
+                m_path.add(new PendingNode());
+            }
+
+            m_path.get(s.length()).terminal = true;
+            m_previous = s;
+        }
+
+        Gaddag build() {
+            freezePath(0);
+            final int root = register(m_path.remove(0));
+            return new Gaddag(Arrays.copyOf(m_nodes, m_numNodes), Arrays.copyOf(m_edges, m_numEdges), root);
+        }
+
+        private void freezePath(int depth) {
+            while (m_path.size() - 1 > depth) {
+                final PendingNode node = m_path.remove(m_path.size() - 1);
+                final int parentDepth = m_path.size() - 1;
+                m_path.get(parentDepth).setChild(m_previous.charAt(parentDepth) - 'A', register(node));
+            }
+        }
+
+        private int register(PendingNode node) {
+            final Signature signature = node.signature();
+            final Integer existing = m_register.get(signature);
+            if (existing != null) {
+                return existing;
+            }
+
+            if (m_numNodes == m_nodes.length) {
+                m_nodes = Arrays.copyOf(m_nodes, m_nodes.length * 2);
+            }
+
+            final int numChildren = signature.values.length - 1;
+            if (m_numEdges + numChildren > m_edges.length) {
+                m_edges = Arrays.copyOf(m_edges, Math.max(m_edges.length * 2, m_numEdges + numChildren));
+            }
+
+            System.arraycopy(signature.values, 1, m_edges, m_numEdges, numChildren);
+            m_nodes[m_numNodes] = ((long) signature.values[0] << FLAGS_SHIFT) | m_numEdges;
+            m_numEdges += numChildren;
+            m_register.put(signature, m_numNodes);
+            return m_numNodes++;
+        }
+    }
+
+    private static final class PendingNode {
+        final int[] children;
+        int mask;
+        boolean terminal;
+
+        PendingNode() {
+            children = new int[NUM_SYMBOLS];
+        }
+
+        void setChild(int symbol, int node) {
+            mask |= 1 << symbol;
+            children[symbol] = node;
+        }
+
+        Signature signature() {
+            final int[] values = new int[1 + Integer.bitCount(mask)];
+            values[0] = mask | (terminal ? TERMINAL_FLAG : 0);
+            int i = 1;
+            for (int remaining = mask; remaining != 0; remaining &= remaining - 1) {
+                values[i++] = children[Integer.numberOfTrailingZeros(remaining)];
+            }
+
+            return new Signature(values);
+        }
+    }
+
+    /**
+     * The flags of a node followed by its child node ids. Two nodes with equal signatures accept the same suffixes.
+     */
+    private static final class Signature {
+        final int[] values;
+        final int hash;
+
+        Signature(int[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Signature && Arrays.equals(values, ((Signature) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
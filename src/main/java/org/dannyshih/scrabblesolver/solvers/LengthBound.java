@@ -0,0 +1,66 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import java.util.List;
+
+/**
+ * The shortest length a solution must have to still be wanted. Without a result limit this is the operation's minimum
+ * length. With one, it rises as solutions are found: once resultLimit solutions of length L or more have been found,
+ * only a longer solution could be among the best, so the bound becomes L + 1. Once the bound passes the maximum length,
+ * the best solutions have all been found.
+ *
+ * Solvers read the bound on every candidate, so it only takes a lock to record solutions.
+ *
+ * @author dshih
+ */
+final class LengthBound {
+    private final int m_maxLength;
+    private final int m_resultLimit;
+    // Guarded by this
+    private final int[] m_numByLength;
+    private volatile int m_minLength;
+
+    /**
+     * @param resultLimit the number of best solutions wanted, or 0 for every solution
+     */
+    LengthBound(int minLength, int maxLength, int resultLimit) {
+        m_minLength = minLength;
+        m_maxLength = maxLength;
+        m_resultLimit = resultLimit;
+        m_numByLength = new int[maxLength + 1];
+    }
+
+    int minLength() {
+        return m_minLength;
+    }
+
+    /**
+     * @return whether no solution that is still to be found would be among the best.
+     */
+    boolean isMet() {
+        return m_minLength > m_maxLength;
+    }
+
+    /**
+     * Raises the bound for newly found solutions. Each solution must be recorded at most once.
+     */
+    void record(List<String> solutions) {
+        if (m_resultLimit == 0 || solutions.isEmpty()) {
+            return;
+        }
+
+        synchronized (this) {
+            for (final String solution : solutions) {
+                m_numByLength[solution.length()]++;
+            }
+
+            int numAtLeast = 0;
+            for (int length = m_maxLength; length >= m_minLength; length--) {
+                numAtLeast += m_numByLength[length];
+                if (numAtLeast >= m_resultLimit) {
+                    m_minLength = length + 1;
+                    return;
+                }
+            }
+        }
+    }
+}
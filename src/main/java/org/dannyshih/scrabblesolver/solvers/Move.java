@@ -0,0 +1,61 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+/**
+ * A legal placement of tiles on a board, scored with its premium squares, cross words and bingo bonus.
+ *
+ * @author dshih
+ */
+public final class Move {
+    private final int m_row;
+    private final int m_col;
+    private final Direction m_direction;
+    private final String m_word;
+    private final int m_score;
+
+    Move(int row, int col, Direction direction, String word, int score) {
+        m_row = row;
+        m_col = col;
+        m_direction = direction;
+        m_word = word;
+        m_score = score;
+    }
+
+    /**
+     * @return the row of the word's first letter, from 0.
+     */
+    public int getRow() {
+        return m_row;
+    }
+
+    /**
+     * @return the column of the word's first letter, from 0.
+     */
+    public int getCol() {
+        return m_col;
+    }
+
+    public Direction getDirection() {
+        return m_direction;
+    }
+
+    /**
+     * @return the main word in played form, including the tiles already on the board, with blanks in lowercase.
+     */
+    public String getWord() {
+        return m_word;
+    }
+
+    public int getScore() {
+        return m_score;
+    }
+
+    @Override
+    public String toString() {
+        return m_word + " at (" + m_row + ", " + m_col + ") " + m_direction + " for " + m_score;
+    }
+
+    public enum Direction {
+        Across,
+        Down
+    }
+}
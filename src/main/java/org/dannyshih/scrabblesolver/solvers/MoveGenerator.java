@@ -0,0 +1,281 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import org.dannyshih.scrabblesolver.TileScores;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates the moves in one direction on a board, with the GADDAG algorithm of Gordon (1994).
+ *
+ * Down moves are generated as Across moves on the transposed board, so every search reads along a row. Per square, the
+ * letters that form a word with the tiles above and below it (its cross-check), and the value of those tiles, are
+ * computed once up front. Moves are then generated from anchors: empty squares next to a tile, or the centre square of
+ * an empty board. Each search starts on its anchor, reads leftward, crosses the GADDAG's separator and reads rightward
+ * from just past the anchor. The leftward part never covers another empty anchor, so every move is generated from
+ * exactly one anchor, the leftmost it covers.
+ *
+ * Instances are immutable once built, and shared between the workers searching different anchors.
+ *
+ * @author dshih
+ */
+final class MoveGenerator {
+    static final int BLANK = Dawg.ALPHABET_SIZE;
+    static final int RACK_SIZE = 7;
+
+    private static final int SIZE = Board.SIZE;
+    private static final int ALL_LETTERS = (1 << Dawg.ALPHABET_SIZE) - 1;
+    private static final int NO_CROSS_WORD = -1;
+    private static final int BINGO_BONUS = 50;
+
+    private final Gaddag m_gaddag;
+    private final Move.Direction m_direction;
+    // On the board as read along rows, transposed for Down moves
+    private final char[][] m_squares;
+    private final int[][] m_crossChecks;
+    // The value of the tiles above and below the square, or NO_CROSS_WORD if there are none
+    private final int[][] m_crossSums;
+    private final boolean[][] m_anchors;
+
+    MoveGenerator(Dictionary dictionary, Board board, Move.Direction direction) {
+        m_gaddag = dictionary.gaddag();
+        m_direction = direction;
+        final Board rows = direction == Move.Direction.Across ? board : board.transpose();
+        m_squares = new char[SIZE][SIZE];
+        m_crossChecks = new int[SIZE][SIZE];
+        m_crossSums = new int[SIZE][SIZE];
+        m_anchors = new boolean[SIZE][SIZE];
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                m_squares[row][col] = rows.get(row, col);
+            }
+        }
+
+        final boolean empty = board.isEmpty();
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                if (!isEmpty(row, col)) {
+                    continue;
+                }
+
+                crossCheck(dictionary.dawg(), row, col);
+                m_anchors[row][col] = empty
+                        ? row == SIZE / 2 && col == SIZE / 2
+                        : !isEmpty(row - 1, col) || !isEmpty(row + 1, col)
+                                || !isEmpty(row, col - 1) || !isEmpty(row, col + 1);
+            }
+        }
+    }
+
+    /**
+     * @return the anchors of each row, as {row, column} pairs.
+     */
+    List<int[]> anchors() {
+        final List<int[]> anchors = new ArrayList<>();
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                if (m_anchors[row][col]) {
+                    anchors.add(new int[] {row, col});
+                }
+            }
+        }
+
+        return anchors;
+    }
+
+    /**
+     * Adds every move generated from the anchor to the list.
+     *
+     * @param rack the number of tiles of each letter, with blanks at BLANK
+     */
+    void generate(int row, int anchor, int[] rack, List<Move> moves) {
+        new Search(row, anchor, rack.clone(), moves).fill(anchor, m_gaddag.root(), anchor, true, 0, 1, 0, 0, false);
+    }
+
+    private void crossCheck(Dawg dawg, int row, int col) {
+        int top = row;
+        while (!isEmpty(top - 1, col)) {
+            top--;
+        }
+
+        int bottom = row;
+        while (!isEmpty(bottom + 1, col)) {
+            bottom++;
+        }
+
+        if (top == row && bottom == row) {
+            m_crossChecks[row][col] = ALL_LETTERS;
+            m_crossSums[row][col] = NO_CROSS_WORD;
+            return;
+        }
+
+        int sum = 0;
+        int node = dawg.root();
+        for (int r = top; r < row && node != Dawg.NONE; r++) {
+            sum += TileScores.value(m_squares[r][col]);
+            node = dawg.child(node, letter(m_squares[r][col]));
+        }
+
+        for (int r = row + 1; r <= bottom; r++) {
+            sum += TileScores.value(m_squares[r][col]);
+        }
+
+        int mask = 0;
+        if (node != Dawg.NONE) {
+            for (int remaining = dawg.childMask(node); remaining != 0; remaining &= remaining - 1) {
+                final int letter = Integer.numberOfTrailingZeros(remaining);
+                int below = dawg.child(node, letter);
+                for (int r = row + 1; r <= bottom && below != Dawg.NONE; r++) {
+                    below = dawg.child(below, letter(m_squares[r][col]));
+                }
+
+                if (below != Dawg.NONE && dawg.isTerminal(below)) {
+                    mask |= 1 << letter;
+                }
+            }
+        }
+
+        m_crossChecks[row][col] = mask;
+        m_crossSums[row][col] = sum;
+    }
+
+    private boolean isEmpty(int row, int col) {
+        return row < 0 || row >= SIZE || col < 0 || col >= SIZE || m_squares[row][col] == Board.EMPTY;
+    }
+
+    /**
+     * @return the letter (0 for 'A') of a tile in played form.
+     */
+    private static int letter(char tile) {
+        return Character.toUpperCase(tile) - 'A';
+    }
+
+    /**
+     * The search from one anchor. The rack and the word being built are mutated as tiles are placed, and restored as
+     * the search backtracks.
+     */
+    private final class Search {
+        private final int m_row;
+        private final int m_anchor;
+        private final int[] m_rack;
+        private final char[] m_word;
+        private final List<Move> m_moves;
+
+        Search(int row, int anchor, int[] rack, List<Move> moves) {
+            m_row = row;
+            m_anchor = anchor;
+            m_rack = rack;
+            m_word = new char[SIZE];
+            m_moves = moves;
+        }
+
+        /**
+         * Fills the square with the tile already on it, or with each tile from the rack that the GADDAG and the
+         * square's cross-check allow.
+         *
+         * @param start the leftmost column of the word so far
+         * @param mainSum the value of the word's tiles, with letter premiums
+         * @param wordMultiplier the product of the word premiums under the tiles placed
+         * @param crossTotal the scores of the cross words formed
+         * @param crossed whether the last tile placed formed a cross word
+         */
+        void fill(int col, int node, int start, boolean leftward, int mainSum, int wordMultiplier, int crossTotal,
+                  int placed, boolean crossed) {
+            final char square = m_squares[m_row][col];
+            if (square != Board.EMPTY) {
+                final int next = m_gaddag.child(node, letter(square));
+                if (next != Gaddag.NONE) {
+                    m_word[col] = square;
+                    advance(col, next, start, leftward, mainSum + TileScores.value(square), wordMultiplier, crossTotal,
+                            placed, crossed);
+                }
+
+                return;
+            }
+
+            if (placed == RACK_SIZE) {
+                return;
+            }
+
+            final int letterMultiplier = Board.letterMultiplier(squareRow(col), squareCol(col));
+            final int squareMultiplier = Board.wordMultiplier(squareRow(col), squareCol(col));
+            final int crossSum = m_crossSums[m_row][col];
+            for (int remaining = m_crossChecks[m_row][col] & m_gaddag.letterMask(node); remaining != 0;
+                 remaining &= remaining - 1) {
+                final int letter = Integer.numberOfTrailingZeros(remaining);
+                final int next = m_gaddag.child(node, letter);
+                // A real tile, then a blank standing for the letter
+                for (int i = 0; i < 2; i++) {
+                    final int tile = i == 0 ? letter : BLANK;
+                    if (m_rack[tile] == 0) {
+                        continue;
+                    }
+
+                    final char played = (char) ((tile == BLANK ? 'a' : 'A') + letter);
+                    final int value = TileScores.value(played) * letterMultiplier;
+                    final int cross = crossSum == NO_CROSS_WORD ? 0 : (crossSum + value) * squareMultiplier;
+                    m_rack[tile]--;
+                    m_word[col] = played;
+                    advance(col, next, start, leftward, mainSum + value, wordMultiplier * squareMultiplier,
+                            crossTotal + cross, placed + 1, crossSum != NO_CROSS_WORD);
+                    m_rack[tile]++;
+                }
+            }
+        }
+
+        private void advance(int col, int node, int start, boolean leftward, int mainSum, int wordMultiplier,
+                             int crossTotal, int placed, boolean crossed) {
+            if (!leftward) {
+                if (m_gaddag.isTerminal(node) && isEmpty(m_row, col + 1)) {
+                    record(start, col, mainSum, wordMultiplier, crossTotal, placed, crossed);
+                }
+
+                if (col + 1 < SIZE) {
+                    fill(col + 1, node, start, false, mainSum, wordMultiplier, crossTotal, placed, crossed);
+                }
+
+                return;
+            }
+
+            // A tile to the left is part of the word, so must be read before the word can start here
+            if (!isEmpty(m_row, col - 1)) {
+                fill(col - 1, node, col - 1, true, mainSum, wordMultiplier, crossTotal, placed, crossed);
+                return;
+            }
+
+            if (m_gaddag.isTerminal(node) && isEmpty(m_row, m_anchor + 1)) {
+                record(col, m_anchor, mainSum, wordMultiplier, crossTotal, placed, crossed);
+            }
+
+            if (col > 0 && !m_anchors[m_row][col - 1]) {
+                fill(col - 1, node, col - 1, true, mainSum, wordMultiplier, crossTotal, placed, crossed);
+            }
+
+            final int separated = m_gaddag.child(node, Gaddag.SEPARATOR);
+            if (separated != Gaddag.NONE && m_anchor + 1 < SIZE) {
+                fill(m_anchor + 1, separated, col, false, mainSum, wordMultiplier, crossTotal, placed, crossed);
+            }
+        }
+
+        private void record(int start, int end, int mainSum, int wordMultiplier, int crossTotal, int placed,
+                            boolean crossed) {
+            // A single letter is not a word. One tile that forms words both ways is the same move in either direction,
+            // so it is only recorded Across.
+            if (end == start || (placed == 1 && crossed && m_direction == Move.Direction.Down)) {
+                return;
+            }
+
+            final int score = mainSum * wordMultiplier + crossTotal + (placed == RACK_SIZE ? BINGO_BONUS : 0);
+            final String word = new String(m_word, start, end - start + 1);
+            m_moves.add(new Move(squareRow(start), squareCol(start), m_direction, word, score));
+        }
+
+        private int squareRow(int col) {
+            return m_direction == Move.Direction.Across ? m_row : col;
+        }
+
+        private int squareCol(int col) {
+            return m_direction == Move.Direction.Across ? col : m_row;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the time taken by the units of work of a solve operation. Recording is striped, so workers recording
+ * concurrently do not contend on a shared cache line.
+ *
+ * @author dshih
+ */
+final class OpTimes {
+    private final LongAdder m_count;
+    private final LongAdder m_sum;
+    private final LongAccumulator m_min;
+    private final LongAccumulator m_max;
+
+    OpTimes() {
+        m_count = new LongAdder();
+        m_sum = new LongAdder();
+        m_min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        m_max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    }
+
+    void record(long millis) {
+        m_count.increment();
+        m_sum.add(millis);
+        m_min.accumulate(millis);
+        m_max.accumulate(millis);
+    }
+
+    long count() {
+        return m_count.sum();
+    }
+
+    double average() {
+        return (double) m_sum.sum() / m_count.sum();
+    }
+
+    long min() {
+        return m_min.get();
+    }
+
+    long max() {
+        return m_max.get();
+    }
+}
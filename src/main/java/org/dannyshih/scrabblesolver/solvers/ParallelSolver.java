@@ -1,34 +1,75 @@
 package org.dannyshih.scrabblesolver.solvers;
 
-import java.io.IOException;
-import java.util.Collections;
-import java.util.List;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * This class parallelizes permutation of all strings in a collection of variable-length strings.
  *
+ * Operations run on a pool owned by the solver rather than the common pool, so they are isolated from anything else in
+ * the JVM. The pool's workers are shared fairly between concurrent operations: each may occupy at most its share of
+ * them, the parallelism divided by the number of running operations, and never more than the per-operation cap.
+ *
+ * Work is split adaptively rather than in fixed-size batches: batches are sized from measured batch times, and a
+ * worker permuting a long combination forks off the prefixes it has not explored yet when other workers are idle.
+ *
  * @author dshih
  */
-public final class ParallelSolver extends Solver {
+public final class ParallelSolver extends PermutationSolver {
     private static final Logger S_LOGGER = LoggerFactory.getLogger(ParallelSolver.class);
+
     private final ForkJoinPool m_pool;
+    private final int m_maxWorkersPerOperation;
+    private final AtomicInteger m_numOperations;
+    private final int m_initialBatchSize;
 
-    public ParallelSolver() throws IOException {
+    public ParallelSolver() {
+        this(Runtime.getRuntime().availableProcessors(), 0, CombinationSpliterator.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param parallelism the number of pool workers
+     * @param maxWorkersPerOperation how many workers one operation may occupy, or 0 for no cap
+     * @param initialBatchSize the number of combinations per batch until batch times have been measured
+     */
+    public ParallelSolver(int parallelism, int maxWorkersPerOperation, int initialBatchSize) {
         super();
-        m_pool = ForkJoinPool.commonPool();
+        Preconditions.checkArgument(parallelism > 0);
+        Preconditions.checkArgument(maxWorkersPerOperation >= 0);
+        Preconditions.checkArgument(initialBatchSize > 0);
+        m_pool = SolverPools.newPool("parallel-solver-", parallelism);
+        m_maxWorkersPerOperation = maxWorkersPerOperation == 0 ? parallelism : maxWorkersPerOperation;
+        m_numOperations = new AtomicInteger();
+        m_initialBatchSize = initialBatchSize;
     }
 
     @Override
-    protected void doSolve(List<StringBuilder> combinations, SolveOperationState state) {
-        S_LOGGER.info("ParallelSolver :: parallelism - {}", m_pool.getParallelism());
+    protected void doSolve(CombinationSpliterator combinations, SolveOperationState state) {
+        S_LOGGER.info("ParallelSolver :: parallelism - {}, at most {} per operation",
+                m_pool.getParallelism(), m_maxWorkersPerOperation);
 
-        // Randomize to produce evenly distributed batches
-        Collections.shuffle(combinations);
-        m_pool.submit(new BatchPermuter(combinations, state)).join();
+        m_numOperations.incrementAndGet();
+        try {
+            // Batches are pulled from the generator as workers become free, so no up-front shuffle is needed
+            m_pool.submit(new BatchPermuter(combinations, state, new WorkerLease(this::share),
+                    new BatchSizer(m_initialBatchSize))).join();
+        } finally {
+            m_numOperations.decrementAndGet();
+        }
 
         S_LOGGER.info("ParallelSolver :: steal count: {}", m_pool.getStealCount());
     }
+
+    /**
+     * @return how many workers each running operation may occupy, rounded up so that no worker is left idle.
+     */
+    private int share() {
+        final int numOperations = Math.max(1, m_numOperations.get());
+        final int share = (m_pool.getParallelism() + numOperations - 1) / numOperations;
+        return Math.min(share, m_maxWorkersPerOperation);
+    }
 }
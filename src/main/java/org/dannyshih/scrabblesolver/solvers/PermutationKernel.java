@@ -0,0 +1,300 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import com.google.common.math.LongMath;
+import org.dannyshih.scrabblesolver.TileScores;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Matcher;
+
+/**
+ * Permutes combinations against the dictionary without allocating on the hot path.
+ *
+ * Permutations are built by swapping in a reusable char[] scratch buffer, next to a stack of DAWG cursors where entry i
+ * is the node reached by the first i letters. Placing a letter is therefore one child-edge step from the node below it
+ * rather than a lookup of the whole prefix from the root, and a prefix is pruned as soon as no word below its node is
+ * long enough to use the whole combination. A String is only allocated for a permutation that passes every filter.
+ *
+ * The regex is stepped as an automaton alongside the DAWG, on a third stack, so a prefix that the regex can no longer
+ * accept is pruned like one that begins no word. Only if the automaton is inexact is a solution also matched against
+ * the regex, with a single reused Matcher over the scratch buffer.
+ *
+ * Letters that blanks stand for are lowercase in combinations. They are reported as such in solutions' played forms,
+ * and treated as their uppercase letter everywhere else.
+ *
+ * A kernel given a worker lease splits its own work: while it permutes a long combination and the pool has idle
+ * workers, it forks the sibling prefixes it has not explored yet as tasks with kernels of their own. The tail of an
+ * operation is therefore not a single long combination running on one worker while the others wait.
+ *
+ * Solutions, and the counts of nodes visited, prefixes pruned and leaves checked, are buffered in the kernel and added
+ * to the operation in batches, so that concurrent kernels do not contend on it for every node.
+ *
+ * Whether the operation should stop, because it was canceled, its time ran out or its best solutions have been found,
+ * is checked every CHECK_INTERVAL nodes rather than at each one. Combinations shorter than the operation's length bound
+ * are skipped, and so are candidates that are too short when the bound rises while permuting. Every permutation of a
+ * combination has the same tile score, so a combination that cannot beat the operation's score bound is skipped too.
+ *
+ * A kernel is not thread-safe; use one per task.
+ *
+ * @author dshih
+ */
+final class PermutationKernel {
+    private static final int CHECK_INTERVAL = (1 << 12) - 1; // nodes, as a mask
+    // Only prefixes with at least this many letters left to place are split off, so that a fork is worth its cost
+    private static final int MIN_SPLIT_LENGTH = 7;
+
+    private final SolveOperationState m_state;
+    private final WorkerLease m_lease;
+    private final Deque<ForkJoinTask<Long>> m_forked;
+    private final Dawg m_dictionary;
+    private final RegexAutomaton m_automaton;
+    private final Scratch m_scratch;
+    private final Matcher m_matcher;
+    private final SolutionBuffer m_solutions;
+    private char[] m_letters;
+    private int[] m_nodes;
+    private int[] m_states;
+    private int m_length;
+    private long m_numVisited;
+    private long m_numPruned;
+    private long m_numLeaves;
+
+    PermutationKernel(SolveOperationState state) {
+        this(state, null);
+    }
+
+    /**
+     * @param lease the lease that forked tasks acquire workers from, or null to never fork
+     */
+    PermutationKernel(SolveOperationState state, WorkerLease lease) {
+        m_state = state;
+        m_lease = lease;
+        m_forked = new ArrayDeque<>();
+        m_dictionary = state.dictionary;
+        m_automaton = state.automaton;
+        m_letters = new char[0];
+        m_nodes = new int[1];
+        m_states = new int[1];
+        m_scratch = new Scratch();
+        m_matcher = state.regex.matcher(m_scratch);
+        m_solutions = new SolutionBuffer(state);
+    }
+
+    /**
+     * Adds the solutions found and the nodes visited so far to the operation. Must be called once done with the kernel.
+     */
+    void flush() {
+        m_solutions.flush();
+        m_state.stats.add(m_numVisited, m_numPruned, m_numLeaves);
+        m_numVisited = 0L;
+        m_numPruned = 0L;
+        m_numLeaves = 0L;
+    }
+
+    /**
+     * Permutes the combination, reporting solutions to the progress.
+     *
+     * @return the number of permutations processed, including those pruned
+     */
+    long permute(CharSequence combination) {
+        m_length = combination.length();
+        if (m_letters.length < m_length) {
+            m_letters = new char[m_length];
+            m_nodes = new int[m_length + 1];
+            m_states = new int[m_length + 1];
+        }
+
+        int score = 0;
+        for (int i = 0; i < m_length; i++) {
+            m_letters[i] = combination.charAt(i);
+            score += TileScores.value(m_letters[i]);
+        }
+
+        m_state.checkStop();
+        if (m_length < m_state.bound.minLength() || score <= m_state.scores.threshold()) {
+            // No permutation could be wanted, so all of them are done
+            return LongMath.factorial(m_length);
+        }
+
+        m_nodes[0] = m_dictionary.root();
+        m_states[0] = m_automaton.start();
+        long numProcessed = 0L;
+        try {
+            numProcessed = permute(0);
+        } finally {
+            numProcessed += joinForked();
+        }
+
+        m_solutions.flushIfStale();
+        return numProcessed;
+    }
+
+    /**
+     * Permutes the letters at and after idx for the choices from through to - 1 of the letter at idx, with the letters,
+     * nodes and regex states before idx already placed. This is the work split off by another kernel.
+     */
+    private long permuteSiblings(char[] letters, int[] nodes, int[] states, int idx, int from, int to) {
+        m_length = letters.length;
+        m_letters = letters;
+        m_nodes = Arrays.copyOf(nodes, m_length + 1);
+        m_states = Arrays.copyOf(states, m_length + 1);
+        long numProcessed = 0L;
+        try {
+            numProcessed = permute(idx, from, to);
+        } finally {
+            numProcessed += joinForked();
+        }
+
+        return numProcessed;
+    }
+
+    /**
+     * Waits for every forked task, even when stopping early, so that none adds solutions after the operation ends.
+     */
+    private long joinForked() {
+        m_forked.forEach(ForkJoinTask::quietlyJoin);
+        long numProcessed = 0L;
+        while (!m_forked.isEmpty()) {
+            numProcessed += m_forked.pop().join();
+        }
+
+        return numProcessed;
+    }
+
+    private long permute(int idx) {
+        // A single combination can take seconds, so these are also checked while permuting it
+        if ((++m_numVisited & CHECK_INTERVAL) == 0) {
+            m_state.checkStop();
+            m_solutions.flushIfStale();
+        }
+
+        if (idx == m_length) {
+            m_numLeaves++;
+            if (m_length >= m_state.bound.minLength() && m_dictionary.isTerminal(m_nodes[idx])
+                    && m_automaton.accepts(m_states[idx]) && (m_automaton.isExact() || m_matcher.reset().matches())) {
+                m_solutions.add(new String(m_letters, 0, m_length));
+            }
+
+            return 1L;
+        }
+
+        return permute(idx, idx, m_length);
+    }
+
+    /**
+     * Permutes the letters at and after idx, for the choices from through to - 1 of the letter at idx.
+     */
+    private long permute(int idx, int from, int to) {
+        final boolean canSplit = m_lease != null && m_length - idx >= MIN_SPLIT_LENGTH;
+        long numProcessed = 0L;
+        for (int i = from; i < to; i++) {
+            if (canSplit && i + 1 < to && shouldSplit()) {
+                // The letters are back in their order at the start of each choice, so the rest can be copied off
+                final SiblingPermuter task = new SiblingPermuter(
+                        Arrays.copyOf(m_letters, m_length), m_nodes, m_states, idx, i + 1, to);
+                task.fork();
+                m_forked.push(task);
+                to = i + 1;
+            }
+
+            swap(idx, i);
+            final int letter = letter(m_letters[idx]);
+            final int child = m_dictionary.child(m_nodes[idx], letter);
+            final int next = child == Dawg.NONE ? RegexAutomaton.DEAD : m_automaton.step(m_states[idx], letter);
+            if (next == RegexAutomaton.DEAD || m_dictionary.maxDepth(child) < m_length - idx - 1) {
+                // No matching word of this length begins with this prefix, so skip every permutation of the rest
+                m_numPruned++;
+                numProcessed += LongMath.factorial(m_length - idx - 1);
+            } else {
+                m_nodes[idx + 1] = child;
+                m_states[idx + 1] = next;
+                numProcessed += permute(idx + 1);
+            }
+
+            swap(idx, i);
+        }
+
+        return numProcessed;
+    }
+
+    /**
+     * @return whether there are idle workers to take split-off work, and the lease allows another.
+     */
+    private boolean shouldSplit() {
+        return ForkJoinTask.inForkJoinPool() && ForkJoinTask.getSurplusQueuedTaskCount() <= 0 && m_lease.tryAcquire();
+    }
+
+    /**
+     * @return the letter index (0 for 'A') of an uppercase letter, or of a lowercase letter played with a blank.
+     */
+    private static int letter(char c) {
+        return (c & 0x1F) - 1;
+    }
+
+    private void swap(int idx0, int idx1) {
+        final char tmp = m_letters[idx0];
+        m_letters[idx0] = m_letters[idx1];
+        m_letters[idx1] = tmp;
+    }
+
+    /**
+     * Permutes sibling prefixes split off by a kernel, with a kernel of its own. Holds a worker of the lease.
+     */
+    private final class SiblingPermuter extends RecursiveTask<Long> {
+        private final char[] m_letters;
+        private final int[] m_nodes;
+        private final int[] m_states;
+        private final int m_idx;
+        private final int m_from;
+        private final int m_to;
+
+        SiblingPermuter(char[] letters, int[] nodes, int[] states, int idx, int from, int to) {
+            m_letters = letters;
+            m_nodes = Arrays.copyOf(nodes, idx + 1);
+            m_states = Arrays.copyOf(states, idx + 1);
+            m_idx = idx;
+            m_from = from;
+            m_to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            final PermutationKernel kernel = new PermutationKernel(m_state, m_lease);
+            try {
+                return kernel.permuteSiblings(m_letters, m_nodes, m_states, m_idx, m_from, m_to);
+            } finally {
+                kernel.flush();
+                m_lease.release();
+            }
+        }
+    }
+
+    /**
+     * An uppercase view of the current permutation in the scratch buffer, for matching without copying.
+     */
+    private final class Scratch implements CharSequence {
+        @Override
+        public int length() {
+            return m_length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return Character.toUpperCase(m_letters[index]);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(m_letters, 0, m_length).toUpperCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class for solvers that generate every distinct combination of the input, including blanks, and then permute
+ * each combination against the dictionary.
+ *
+ * @author dshih
+ */
+abstract class PermutationSolver extends Solver {
+    private static final Logger S_LOGGER = LoggerFactory.getLogger(PermutationSolver.class);
+
+    PermutationSolver() {
+        super();
+    }
+
+    /**
+     * Permutes every combination. Combinations are generated lazily as they are pulled from the spliterator.
+     */
+    protected abstract void doSolve(CombinationSpliterator combinations, SolveOperationState state);
+
+    @Override
+    protected final void doSolve(String input, SolveOperationState state) {
+        final CombinationSpliterator combinations =
+                new CombinationSpliterator(input, state.minCharacters, state.maxCharacters);
+        state.progress.start(combinations.totalPermutations());
+        S_LOGGER.info("Solver :: distinct combinations: {}", combinations.estimateSize());
+
+        try {
+            doSolve(combinations, state);
+        } finally {
+            state.stats.addGenerationNanos(combinations.generationNanos());
+        }
+    }
+}
@@ -0,0 +1,612 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A deterministic automaton over the letters A-Z that accepts the same words as a regex, so that the regex can be
+ * checked a letter at a time while a word is being built, and a prefix that no completion could match is pruned.
+ *
+ * The common regex syntax is supported: literals, '.', character classes and ranges, groups, alternation, greedy and
+ * reluctant quantifiers, and the \w \d \s escapes. Only uppercase letters ever reach the automaton, so anything else
+ * simply matches nothing. For anything beyond that (lookarounds, backreferences, flags, ...), or for a regex that would
+ * need too many states, the automaton is inexact: it accepts every word, and solutions must still be checked against
+ * the Pattern.
+ *
+ * Every state can reach an accepting state; a transition that could not is DEAD.
+ *
+ * @author dshih
+ */
+final class RegexAutomaton {
+    static final int DEAD = -1;
+
+    private static final int ALL_LETTERS = (1 << Dawg.ALPHABET_SIZE) - 1;
+    private static final int MAX_STATES = 4096;
+    private static final int MAX_NFA_STATES = 1 << 14;
+
+    // The next state for each state and letter, at state * ALPHABET_SIZE + letter
+    private final int[] m_transitions;
+    // The letters (bit 0 for 'A') that lead out of each state to a state that is not DEAD
+    private final int[] m_letterMasks;
+    private final boolean[] m_accepting;
+    private final boolean m_isExact;
+
+    private RegexAutomaton(int[] transitions, int[] letterMasks, boolean[] accepting, boolean isExact) {
+        m_transitions = transitions;
+        m_letterMasks = letterMasks;
+        m_accepting = accepting;
+        m_isExact = isExact;
+    }
+
+    /**
+     * Compiles the regex, or returns an inexact automaton if the regex uses unsupported syntax.
+     */
+    static RegexAutomaton compile(Pattern regex) {
+        if (regex.flags() != 0) {
+            return inexact();
+        }
+
+        try {
+            final Nfa nfa = new Nfa();
+            final int[] fragment = new Parser(regex.pattern()).parse().build(nfa);
+            return determinize(nfa, fragment[0], fragment[1]);
+        } catch (UnsupportedSyntaxException e) {
+            return inexact();
+        }
+    }
+
+    int start() {
+        return 0;
+    }
+
+    /**
+     * @return the state reached from the given state by the letter (0 for 'A'), or DEAD if no word can match.
+     */
+    int step(int state, int letter) {
+        return m_transitions[state * Dawg.ALPHABET_SIZE + letter];
+    }
+
+    /**
+     * @return a bitmask of the letters (bit 0 for 'A') that do not lead out of the given state to DEAD.
+     */
+    int letterMask(int state) {
+        return m_letterMasks[state];
+    }
+
+    boolean accepts(int state) {
+        return m_accepting[state];
+    }
+
+    /**
+     * Is acceptance exactly equivalent to the regex? If not, accepted words must still be matched against it.
+     */
+    boolean isExact() {
+        return m_isExact;
+    }
+
+    int numStates() {
+        return m_accepting.length;
+    }
+
+    private static RegexAutomaton inexact() {
+        final int[] transitions = new int[Dawg.ALPHABET_SIZE];
+        return new RegexAutomaton(transitions, new int[] {ALL_LETTERS}, new boolean[] {true}, false);
+    }
+
+    /**
+     * Builds the DFA by subset construction, then replaces every transition to a state that cannot reach an accepting
+     * state with DEAD.
+     */
+    private static RegexAutomaton determinize(Nfa nfa, int nfaStart, int nfaAccept) throws UnsupportedSyntaxException {
+        final Map<BitSet, Integer> ids = new HashMap<>();
+        final List<BitSet> states = new ArrayList<>();
+        final Deque<Integer> pending = new ArrayDeque<>();
+        final BitSet start = new BitSet();
+        start.set(nfaStart);
+        nfa.closure(start);
+        ids.put(start, 0);
+        states.add(start);
+        pending.add(0);
+
+        int[] transitions = new int[Dawg.ALPHABET_SIZE * 64];
+        while (!pending.isEmpty()) {
+            final int id = pending.remove();
+            final BitSet current = states.get(id);
+            for (int letter = 0; letter < Dawg.ALPHABET_SIZE; letter++) {
+                final BitSet next = nfa.step(current, letter);
+                nfa.closure(next);
+                Integer nextId = ids.get(next);
+                if (nextId == null) {
+                    if (states.size() == MAX_STATES) {
+                        throw new UnsupportedSyntaxException();
+                    }
+
+                    nextId = states.size();
+                    ids.put(next, nextId);
+                    states.add(next);
+                    pending.add(nextId);
+                }
+
+                if ((id + 1) * Dawg.ALPHABET_SIZE > transitions.length) {
+                    transitions = Arrays.copyOf(transitions, transitions.length * 2);
+                }
+
+                transitions[id * Dawg.ALPHABET_SIZE + letter] = nextId;
+            }
+        }
+
+        final int numStates = states.size();
+        final boolean[] accepting = new boolean[numStates];
+        for (int id = 0; id < numStates; id++) {
+            accepting[id] = states.get(id).get(nfaAccept);
+        }
+
+        // A state is live if an accepting state is reachable from it. The edges are reversed once, grouped by their
+        // target, so that a search back from the accepting states visits each edge at most once.
+        final int numEdges = numStates * Dawg.ALPHABET_SIZE;
+        final int[] sourcesStart = new int[numStates + 1];
+        for (int index = 0; index < numEdges; index++) {
+            sourcesStart[transitions[index] + 1]++;
+        }
+
+        for (int id = 0; id < numStates; id++) {
+            sourcesStart[id + 1] += sourcesStart[id];
+        }
+
+        final int[] sources = new int[numEdges];
+        final int[] sourcesEnd = Arrays.copyOf(sourcesStart, numStates);
+        for (int index = 0; index < numEdges; index++) {
+            sources[sourcesEnd[transitions[index]]++] = index / Dawg.ALPHABET_SIZE;
+        }
+
+        final boolean[] live = accepting.clone();
+        final int[] reached = new int[numStates];
+        int numReached = 0;
+        for (int id = 0; id < numStates; id++) {
+            if (live[id]) {
+                reached[numReached++] = id;
+            }
+        }
+
+        for (int next = 0; next < numReached; next++) {
+            final int id = reached[next];
+            for (int edge = sourcesStart[id]; edge < sourcesStart[id + 1]; edge++) {
+                if (!live[sources[edge]]) {
+                    live[sources[edge]] = true;
+                    reached[numReached++] = sources[edge];
+                }
+            }
+        }
+
+        final int[] letterMasks = new int[numStates];
+        for (int id = 0; id < numStates; id++) {
+            for (int letter = 0; letter < Dawg.ALPHABET_SIZE; letter++) {
+                final int index = id * Dawg.ALPHABET_SIZE + letter;
+                if (live[id] && live[transitions[index]]) {
+                    letterMasks[id] |= 1 << letter;
+                } else {
+                    transitions[index] = DEAD;
+                }
+            }
+        }
+
+        return new RegexAutomaton(
+                Arrays.copyOf(transitions, numStates * Dawg.ALPHABET_SIZE), letterMasks, accepting, true);
+    }
+
+    /**
+     * A Thompson NFA. Each state has either one letter-set edge or any number of epsilon edges.
+     */
+    private static final class Nfa {
+        private final List<Integer> m_masks = new ArrayList<>();
+        private final List<Integer> m_targets = new ArrayList<>();
+        private final List<List<Integer>> m_epsilons = new ArrayList<>();
+
+        int newState() throws UnsupportedSyntaxException {
+            if (m_masks.size() == MAX_NFA_STATES) {
+                throw new UnsupportedSyntaxException();
+            }
+
+            m_masks.add(0);
+            m_targets.add(DEAD);
+            m_epsilons.add(new ArrayList<>());
+            return m_masks.size() - 1;
+        }
+
+        void addEdge(int from, int mask, int to) {
+            m_masks.set(from, mask);
+            m_targets.set(from, to);
+        }
+
+        void addEpsilon(int from, int to) {
+            m_epsilons.get(from).add(to);
+        }
+
+        void closure(BitSet states) {
+            final int[] pending = new int[m_masks.size()];
+            int numPending = 0;
+            for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+                pending[numPending++] = state;
+            }
+
+            while (numPending > 0) {
+                for (final int to : m_epsilons.get(pending[--numPending])) {
+                    if (!states.get(to)) {
+                        states.set(to);
+                        pending[numPending++] = to;
+                    }
+                }
+            }
+        }
+
+        BitSet step(BitSet states, int letter) {
+            final BitSet next = new BitSet();
+            for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+                if ((m_masks.get(state) & (1 << letter)) != 0) {
+                    next.set(m_targets.get(state));
+                }
+            }
+
+            return next;
+        }
+    }
+
+    /**
+     * A node of the parsed regex, which builds itself into the NFA as a fragment of {start, accept} states.
+     */
+    private interface Node {
+        int[] build(Nfa nfa) throws UnsupportedSyntaxException;
+    }
+
+    private static final class Letters implements Node {
+        private final int m_mask;
+
+        Letters(int mask) {
+            m_mask = mask;
+        }
+
+        @Override
+        public int[] build(Nfa nfa) throws UnsupportedSyntaxException {
+            final int start = nfa.newState();
+            final int accept = nfa.newState();
+            nfa.addEdge(start, m_mask, accept);
+            return new int[] {start, accept};
+        }
+    }
+
+    private static final class Concat implements Node {
+        private final List<Node> m_nodes;
+
+        Concat(List<Node> nodes) {
+            m_nodes = nodes;
+        }
+
+        @Override
+        public int[] build(Nfa nfa) throws UnsupportedSyntaxException {
+            final int start = nfa.newState();
+            int accept = start;
+            for (final Node node : m_nodes) {
+                final int[] fragment = node.build(nfa);
+                nfa.addEpsilon(accept, fragment[0]);
+                accept = fragment[1];
+            }
+
+            return new int[] {start, accept};
+        }
+    }
+
+    private static final class Alternation implements Node {
+        private final List<Node> m_alternatives;
+
+        Alternation(List<Node> alternatives) {
+            m_alternatives = alternatives;
+        }
+
+        @Override
+        public int[] build(Nfa nfa) throws UnsupportedSyntaxException {
+            final int start = nfa.newState();
+            final int accept = nfa.newState();
+            for (final Node alternative : m_alternatives) {
+                final int[] fragment = alternative.build(nfa);
+                nfa.addEpsilon(start, fragment[0]);
+                nfa.addEpsilon(fragment[1], accept);
+            }
+
+            return new int[] {start, accept};
+        }
+    }
+
+    private static final class Repetition implements Node {
+        private final Node m_node;
+        private final int m_min;
+        private final int m_max; // or -1 for unbounded
+
+        Repetition(Node node, int min, int max) {
+            m_node = node;
+            m_min = min;
+            m_max = max;
+        }
+
+        @Override
+        public int[] build(Nfa nfa) throws UnsupportedSyntaxException {
+            final int start = nfa.newState();
+            final int accept = nfa.newState();
+            int current = start;
+            for (int i = 0; i < m_min; i++) {
+                final int[] fragment = m_node.build(nfa);
+                nfa.addEpsilon(current, fragment[0]);
+                current = fragment[1];
+            }
+
+            if (m_max == -1) {
+                final int[] fragment = m_node.build(nfa);
+                nfa.addEpsilon(current, fragment[0]);
+                nfa.addEpsilon(fragment[1], fragment[0]);
+                nfa.addEpsilon(fragment[1], accept);
+            } else {
+                for (int i = m_min; i < m_max; i++) {
+                    nfa.addEpsilon(current, accept);
+                    final int[] fragment = m_node.build(nfa);
+                    nfa.addEpsilon(current, fragment[0]);
+                    current = fragment[1];
+                }
+            }
+
+            nfa.addEpsilon(current, accept);
+            return new int[] {start, accept};
+        }
+    }
+
+    /**
+     * A recursive descent parser for the supported subset of java.util.regex syntax.
+     */
+    private static final class Parser {
+        private final String m_pattern;
+        private int m_pos;
+
+        Parser(String pattern) {
+            m_pattern = pattern;
+        }
+
+        Node parse() throws UnsupportedSyntaxException {
+            // matches() must consume the whole word, so anchors at either end of the pattern change nothing
+            if (peek() == '^') {
+                m_pos++;
+            }
+
+            final Node node = parseAlternation();
+            if (peek() == '$' && m_pos == m_pattern.length() - 1) {
+                m_pos++;
+            }
+
+            if (m_pos != m_pattern.length()) {
+                throw new UnsupportedSyntaxException();
+            }
+
+            return node;
+        }
+
+        private Node parseAlternation() throws UnsupportedSyntaxException {
+            final List<Node> alternatives = new ArrayList<>();
+            alternatives.add(parseConcat());
+            while (peek() == '|') {
+                m_pos++;
+                alternatives.add(parseConcat());
+            }
+
+            return alternatives.size() == 1 ? alternatives.get(0) : new Alternation(alternatives);
+        }
+
+        private Node parseConcat() throws UnsupportedSyntaxException {
+            final List<Node> nodes = new ArrayList<>();
+            while (m_pos < m_pattern.length() && peek() != '|' && peek() != ')'
+                    && !(peek() == '$' && m_pos == m_pattern.length() - 1)) {
+                nodes.add(parseQuantified(parseAtom()));
+            }
+
+            return nodes.size() == 1 ? nodes.get(0) : new Concat(nodes);
+        }
+
+        private Node parseQuantified(Node atom) throws UnsupportedSyntaxException {
+            final int min;
+            final int max;
+            switch (peek()) {
+                case '*':
+                    m_pos++;
+                    min = 0;
+                    max = -1;
+                    break;
+                case '+':
+                    m_pos++;
+                    min = 1;
+                    max = -1;
+                    break;
+                case '?':
+                    m_pos++;
+                    min = 0;
+                    max = 1;
+                    break;
+                case '{':
+                    m_pos++;
+                    min = parseNumber();
+                    if (peek() == ',') {
+                        m_pos++;
+                        max = peek() == '}' ? -1 : parseNumber();
+                    } else {
+                        max = min;
+                    }
+
+                    expect('}');
+                    if (max != -1 && max < min) {
+                        throw new UnsupportedSyntaxException();
+                    }
+
+                    break;
+                default:
+                    return atom;
+            }
+
+            // A reluctant quantifier accepts the same words under matches(); a possessive one may not
+            if (peek() == '?') {
+                m_pos++;
+            } else if (peek() == '+') {
+                throw new UnsupportedSyntaxException();
+            }
+
+            // java.util.regex does not repeat a repetition (A{3}{2} matches AAA, not six A's)
+            if (isQuantifier(peek())) {
+                throw new UnsupportedSyntaxException();
+            }
+
+            return new Repetition(atom, min, max);
+        }
+
+        private static boolean isQuantifier(char c) {
+            return c == '*' || c == '+' || c == '?' || c == '{';
+        }
+
+        private Node parseAtom() throws UnsupportedSyntaxException {
+            final char c = m_pattern.charAt(m_pos++);
+            switch (c) {
+                case '.':
+                    return new Letters(ALL_LETTERS);
+                case '[':
+                    return new Letters(parseClass());
+                case '(':
+                    if (peek() == '?') {
+                        m_pos++;
+                        expect(':');
+                    }
+
+                    final Node group = parseAlternation();
+                    expect(')');
+                    return group;
+                case '\\':
+                    return new Letters(parseEscape());
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                case '^':
+                case '$':
+                case ')':
+                case ']':
+                    throw new UnsupportedSyntaxException();
+                default:
+                    return new Letters(letter(c));
+            }
+        }
+
+        private int parseClass() throws UnsupportedSyntaxException {
+            final boolean negated = peek() == '^';
+            if (negated) {
+                m_pos++;
+            }
+
+            int mask = 0;
+            boolean first = true;
+            while (first || peek() != ']') {
+                first = false;
+                if (m_pos >= m_pattern.length()) {
+                    throw new UnsupportedSyntaxException();
+                }
+
+                final char c = m_pattern.charAt(m_pos++);
+                if (c == '[' || (c == '&' && peek() == '&')) {
+                    throw new UnsupportedSyntaxException();
+                }
+
+                if (c == '\\') {
+                    mask |= parseEscape();
+                } else if (peek() == '-' && m_pos + 1 < m_pattern.length() && m_pattern.charAt(m_pos + 1) != ']') {
+                    m_pos++;
+                    final char end = m_pattern.charAt(m_pos++);
+                    if (end == '\\' || end == '[' || end < c) {
+                        throw new UnsupportedSyntaxException();
+                    }
+
+                    for (char member = (char) Math.max(c, 'A'); member <= Math.min(end, 'Z'); member++) {
+                        mask |= letter(member);
+                    }
+                } else {
+                    mask |= letter(c);
+                }
+            }
+
+            m_pos++;
+            return negated ? ~mask & ALL_LETTERS : mask;
+        }
+
+        private int parseEscape() throws UnsupportedSyntaxException {
+            if (m_pos >= m_pattern.length()) {
+                throw new UnsupportedSyntaxException();
+            }
+
+            final char c = m_pattern.charAt(m_pos++);
+            switch (c) {
+                case 'w':
+                case 'D':
+                case 'S':
+                    return ALL_LETTERS;
+                case 'W':
+                case 'd':
+                case 's':
+                case 't':
+                case 'n':
+                case 'r':
+                case 'f':
+                case 'a':
+                case 'e':
+                    return 0;
+                default:
+                    if (Character.isLetterOrDigit(c)) {
+                        throw new UnsupportedSyntaxException();
+                    }
+
+                    return letter(c);
+            }
+        }
+
+        private int parseNumber() throws UnsupportedSyntaxException {
+            final int start = m_pos;
+            while (m_pos < m_pattern.length() && Character.isDigit(peek()) && m_pos - start < 4) {
+                m_pos++;
+            }
+
+            if (m_pos == start || Character.isDigit(peek())) {
+                throw new UnsupportedSyntaxException();
+            }
+
+            return Integer.parseInt(m_pattern.substring(start, m_pos));
+        }
+
+        private void expect(char c) throws UnsupportedSyntaxException {
+            if (peek() != c) {
+                throw new UnsupportedSyntaxException();
+            }
+
+            m_pos++;
+        }
+
+        private char peek() {
+            return m_pos < m_pattern.length() ? m_pattern.charAt(m_pos) : '\0';
+        }
+
+        private static int letter(char c) {
+            return c >= 'A' && c <= 'Z' ? 1 << (c - 'A') : 0;
+        }
+    }
+
+    private static final class UnsupportedSyntaxException extends Exception {
+        UnsupportedSyntaxException() {
+            super(null, null, false, false);
+        }
+    }
+}
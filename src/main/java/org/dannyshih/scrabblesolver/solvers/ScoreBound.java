@@ -0,0 +1,74 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import org.dannyshih.scrabblesolver.TileScores;
+
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The score a candidate must beat to still be wanted, when only the resultLimit best-scoring solutions are wanted. The
+ * scores of the best solutions found so far are kept in a min-heap of at most resultLimit entries; once it is full,
+ * its smallest entry is the score to beat, and a branch whose best possible score does not beat it is pruned. Once no
+ * candidate could beat it, the best solutions have all been found.
+ *
+ * Solvers read the threshold on every branch, so it only takes a lock to record solutions.
+ *
+ * @author dshih
+ */
+final class ScoreBound {
+    private final int m_resultLimit;
+    private final int m_maxScore;
+    // Guarded by this
+    private final PriorityQueue<Integer> m_best;
+    private volatile int m_threshold;
+
+    /**
+     * @param resultLimit the number of best-scoring solutions wanted, or 0 to rank by something else
+     * @param maxScore the best score any candidate could have
+     */
+    ScoreBound(int resultLimit, int maxScore) {
+        m_resultLimit = resultLimit;
+        m_maxScore = maxScore;
+        m_best = new PriorityQueue<>();
+        m_threshold = -1;
+    }
+
+    /**
+     * @return the score a candidate must beat, or -1 while any candidate would do.
+     */
+    int threshold() {
+        return m_threshold;
+    }
+
+    /**
+     * @return whether no candidate could score well enough to be among the best.
+     */
+    boolean isMet() {
+        return m_threshold >= m_maxScore;
+    }
+
+    /**
+     * Raises the threshold for newly found solutions. Each solution must be recorded at most once.
+     */
+    void record(List<String> solutions) {
+        if (m_resultLimit == 0 || solutions.isEmpty()) {
+            return;
+        }
+
+        synchronized (this) {
+            for (final String solution : solutions) {
+                final int score = TileScores.score(solution);
+                if (m_best.size() < m_resultLimit) {
+                    m_best.add(score);
+                } else if (score > m_best.peek()) {
+                    m_best.poll();
+                    m_best.add(score);
+                }
+            }
+
+            if (m_best.size() == m_resultLimit) {
+                m_threshold = m_best.peek();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers the solutions found by one worker and adds them to the progress together, so that workers do not contend on
+ * the progress for every solution. A solution is held for at most MAX_STALENESS, as long as the worker calls
+ * flushIfStale() regularly, and the owner must flush() before the operation finishes. The solutions the progress keeps
+ * also raise the operation's length and score bounds.
+ *
+ * A buffer is not thread-safe; use one per worker.
+ *
+ * @author dshih
+ */
+final class SolutionBuffer {
+    private static final int MAX_SOLUTIONS = 256;
+    private static final long MAX_STALENESS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final SolveOperationState m_state;
+    private final int m_capacity;
+    private final List<String> m_solutions;
+    private long m_oldest;
+
+    SolutionBuffer(SolveOperationState state) {
+        m_state = state;
+        // When only the best are wanted, the bounds rise sooner for flushing about that many at a time
+        final int resultLimit = state.limits.getResultLimit();
+        m_capacity = resultLimit == 0 ? MAX_SOLUTIONS : Math.min(MAX_SOLUTIONS, resultLimit);
+        m_solutions = new ArrayList<>();
+    }
+
+    void add(String solution) {
+        if (m_solutions.isEmpty()) {
+            m_oldest = System.nanoTime();
+        }
+
+        m_solutions.add(solution);
+        if (m_solutions.size() >= m_capacity) {
+            flush();
+        } else {
+            flushIfStale();
+        }
+    }
+
+    boolean isEmpty() {
+        return m_solutions.isEmpty();
+    }
+
+    void flushIfStale() {
+        if (!m_solutions.isEmpty() && System.nanoTime() - m_oldest >= MAX_STALENESS) {
+            flush();
+        }
+    }
+
+    void flush() {
+        if (!m_solutions.isEmpty()) {
+            final List<String> kept = m_state.progress.addSolutions(m_solutions);
+            m_state.bound.record(kept);
+            m_state.scores.record(kept);
+            m_solutions.clear();
+        }
+    }
+}
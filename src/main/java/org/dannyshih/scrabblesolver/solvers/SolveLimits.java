@@ -0,0 +1,75 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import com.google.common.base.Preconditions;
+import org.dannyshih.scrabblesolver.Progress;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits on how much of its answer a solve operation has to find. With a deadline, the operation stops when its time
+ * runs out and reports the solutions found so far as a partial answer. With a result limit, only the best that many
+ * solutions, the longest or the highest-scoring, are wanted, and the operation stops as soon as no solution it could
+ * still find would be among them.
+ *
+ * @author dshih
+ */
+public final class SolveLimits {
+    private static final SolveLimits NONE = new SolveLimits(false, 0L, 0, Progress.Ranking.Length);
+
+    private final boolean m_hasDeadline;
+    // In System.nanoTime()
+    private final long m_deadline;
+    private final int m_resultLimit;
+    private final Progress.Ranking m_ranking;
+
+    private SolveLimits(boolean hasDeadline, long deadline, int resultLimit, Progress.Ranking ranking) {
+        m_hasDeadline = hasDeadline;
+        m_deadline = deadline;
+        m_resultLimit = resultLimit;
+        m_ranking = ranking;
+    }
+
+    public static SolveLimits none() {
+        return NONE;
+    }
+
+    /**
+     * @param timeBudgetMillis how long the operation may take from now, or 0 for no deadline
+     * @param resultLimit the number of longest solutions wanted, or 0 for every solution
+     */
+    public static SolveLimits of(long timeBudgetMillis, int resultLimit) {
+        return of(timeBudgetMillis, resultLimit, Progress.Ranking.Length);
+    }
+
+    /**
+     * @param timeBudgetMillis how long the operation may take from now, or 0 for no deadline
+     * @param resultLimit the number of best solutions wanted, or 0 for every solution
+     * @param ranking what makes a solution better than another
+     */
+    public static SolveLimits of(long timeBudgetMillis, int resultLimit, Progress.Ranking ranking) {
+        Preconditions.checkNotNull(ranking);
+        Preconditions.checkArgument(timeBudgetMillis >= 0L, "Invalid time budget: %s", timeBudgetMillis);
+        Preconditions.checkArgument(resultLimit >= 0, "Invalid result limit: %s", resultLimit);
+        return new SolveLimits(timeBudgetMillis > 0L,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis), resultLimit, ranking);
+    }
+
+    public int getResultLimit() {
+        return m_resultLimit;
+    }
+
+    public Progress.Ranking getRanking() {
+        return m_ranking;
+    }
+
+    boolean isExpired() {
+        return m_hasDeadline && System.nanoTime() - m_deadline >= 0L;
+    }
+
+    @Override
+    public String toString() {
+        final String deadline = m_hasDeadline
+                ? TimeUnit.NANOSECONDS.toMillis(m_deadline - System.nanoTime()) + " ms left" : "no deadline";
+        return deadline + ", " + (m_resultLimit == 0 ? "every solution" : "best " + m_resultLimit + " by " + m_ranking);
+    }
+}
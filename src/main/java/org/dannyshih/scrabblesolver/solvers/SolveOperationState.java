@@ -2,30 +2,65 @@ package org.dannyshih.scrabblesolver.solvers;
 
 import org.dannyshih.scrabblesolver.Progress;
 
-import java.util.Queue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
 final class SolveOperationState {
-    final Trie dictionary;
+    final Dawg dictionary;
     final int minCharacters;
+    final int maxCharacters;
     final Pattern regex;
+    final RegexAutomaton automaton;
     final Progress progress;
     final AtomicBoolean isCancellationRequested;
-    final Queue<Long> opTimes;
+    final OpTimes opTimes;
+    final SolveStats stats;
+    final SolveLimits limits;
+    final LengthBound bound;
+    final ScoreBound scores;
 
     SolveOperationState(
-            Trie dictionary,
+            Dawg dictionary,
             int minCharacters,
+            int maxCharacters,
             Pattern regex,
             Progress progress,
             AtomicBoolean isCancellationRequested,
-            Queue<Long> opTimes) {
+            OpTimes opTimes,
+            SolveLimits limits,
+            int maxScore) {
         this.dictionary = dictionary;
         this.minCharacters = minCharacters;
+        this.maxCharacters = maxCharacters;
         this.regex = regex;
+        this.automaton = RegexAutomaton.compile(regex);
         this.progress = progress;
         this.isCancellationRequested = isCancellationRequested;
         this.opTimes = opTimes;
+        this.stats = new SolveStats();
+        this.limits = limits;
+        final boolean byScore = limits.getRanking() == Progress.Ranking.Score;
+        this.bound = new LengthBound(minCharacters, maxCharacters, byScore ? 0 : limits.getResultLimit());
+        this.scores = new ScoreBound(byScore ? limits.getResultLimit() : 0, maxScore);
+    }
+
+    /**
+     * Solvers call this periodically rather than at every node, since it reads the clock.
+     *
+     * @throws CancellationException if the operation should stop: it was canceled, its time ran out, or it has found
+     *      its best solutions
+     */
+    void checkStop() {
+        if (isCancellationRequested.get() || limits.isExpired() || hasFoundBest()) {
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * @return whether the operation has found the best solutions it was asked for, so that no other could replace them.
+     */
+    boolean hasFoundBest() {
+        return bound.isMet() || scores.isMet();
     }
 }
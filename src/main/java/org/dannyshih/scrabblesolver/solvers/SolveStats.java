@@ -0,0 +1,57 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts of the work a solve operation did, for metrics.
+ *
+ * A node is a prefix the search reached. It is pruned if nothing below it was searched, because it begins no word of a
+ * usable length, the regex can no longer match, or there is no tile left to play it with. A leaf is a complete
+ * candidate that was checked against the dictionary and the regex.
+ *
+ * Kernels count locally and add their counts here when they flush, so the counters are not contended.
+ *
+ * @author dshih
+ */
+public final class SolveStats {
+    private final LongAdder m_nodesVisited;
+    private final LongAdder m_prefixesPruned;
+    private final LongAdder m_leavesChecked;
+    private final LongAdder m_generationNanos;
+
+    SolveStats() {
+        m_nodesVisited = new LongAdder();
+        m_prefixesPruned = new LongAdder();
+        m_leavesChecked = new LongAdder();
+        m_generationNanos = new LongAdder();
+    }
+
+    void add(long nodesVisited, long prefixesPruned, long leavesChecked) {
+        m_nodesVisited.add(nodesVisited);
+        m_prefixesPruned.add(prefixesPruned);
+        m_leavesChecked.add(leavesChecked);
+    }
+
+    void addGenerationNanos(long nanos) {
+        m_generationNanos.add(nanos);
+    }
+
+    public long getNodesVisited() {
+        return m_nodesVisited.sum();
+    }
+
+    public long getPrefixesPruned() {
+        return m_prefixesPruned.sum();
+    }
+
+    public long getLeavesChecked() {
+        return m_leavesChecked.sum();
+    }
+
+    /**
+     * @return the time spent generating combinations to permute. Always 0 for solvers that do not permute.
+     */
+    public long getGenerationNanos() {
+        return m_generationNanos.sum();
+    }
+}
@@ -1,110 +1,133 @@
 package org.dannyshih.scrabblesolver.solvers;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Comparator;
 import java.util.concurrent.CancellationException;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 
 import com.google.common.base.Preconditions;
-import com.google.common.math.BigIntegerMath;
 import org.dannyshih.scrabblesolver.Progress;
+import org.dannyshih.scrabblesolver.TileScores;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public abstract class Solver {
     private static final Logger S_LOGGER = LoggerFactory.getLogger(Solver.class);
-    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-
-    protected final Trie m_dictionary;
-
-    public Solver() throws IOException {
-        m_dictionary = new Trie();
-        populateDictionary();
+    protected static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    /**
+     * Finds every solution for the input, reporting them and the amount of work done to the state's progress.
+     * Implementations must call progress.start() before doing any work.
+     */
+    protected abstract void doSolve(String input, SolveOperationState state);
+
+    /**
+     * Estimates the work of solving, as the number of permutations of the input within the length bounds. This is an
+     * upper bound that ignores pruning, good for comparing operations rather than predicting their run time.
+     *
+     * @param maxCharacters the length of the longest solutions to find, or 0 for no maximum
+     * @throws IllegalArgumentException if the input has invalid characters
+     */
+    public long estimateCost(Dictionary dictionary, String input, int minCharacters, int maxCharacters) {
+        Preconditions.checkArgument(StringUtils.isNotBlank(input));
+        try {
+            return new CombinationSpliterator(input, minCharacters, maxLength(input, maxCharacters))
+                    .totalPermutations();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
     }
 
-    protected abstract void doSolve(List<StringBuilder> combinations, SolveOperationState state);
-
-    public void solve(
+    /**
+     * @param maxCharacters the length of the longest solutions to find, or 0 for no maximum
+     * @return the work done, also when the operation was canceled
+     */
+    public SolveStats solve(
+            Dictionary dictionary,
             String input,
             int minCharacters,
+            int maxCharacters,
             Pattern regex,
             Progress progress,
             AtomicBoolean isCancellationRequested) {
-        Preconditions.checkArgument(StringUtils.isNotBlank(input));
-        S_LOGGER.info("Solver :: solving {} ({} chars, {} blanks), {} minimum, matching {}",
-                input, input.length(), input.chars().filter(c -> c == '*').count(), minCharacters, regex.toString());
-
-        final List<StringBuilder> combinations = new ArrayList<>();
-        final AtomicLong totalPermutations = new AtomicLong();
-        generateCombinationsWithBlanks(new StringBuilder(input), combination -> {
-            combinations.add(combination);
-            totalPermutations.addAndGet(BigIntegerMath.factorial(combination.length()).longValueExact());
-        });
-
-        progress.start(totalPermutations.get());
-        S_LOGGER.info("Solver :: generated combinations: {}", combinations.size());
+        return solve(dictionary, input, minCharacters, maxCharacters, regex, progress, isCancellationRequested,
+                SolveLimits.none());
+    }
 
+    /**
+     * Solves within the limits. An operation whose time runs out finishes with the solutions found so far, and the
+     * progress marked partial. An operation that has found the best solutions it was asked for finishes early.
+     *
+     * @param maxCharacters the length of the longest solutions to find, or 0 for no maximum
+     * @return the work done, also when the operation was canceled or stopped early
+     */
+    public SolveStats solve(
+            Dictionary dictionary,
+            String input,
+            int minCharacters,
+            int maxCharacters,
+            Pattern regex,
+            Progress progress,
+            AtomicBoolean isCancellationRequested,
+            SolveLimits limits) {
+        Preconditions.checkNotNull(dictionary);
+        Preconditions.checkNotNull(limits);
+        Preconditions.checkArgument(StringUtils.isNotBlank(input));
+        Preconditions.checkArgument(maxCharacters >= 0);
+        final int maxLength = maxLength(input, maxCharacters);
+        S_LOGGER.info("Solver :: solving {} ({} chars, {} blanks), {}-{} chars, matching {}, dictionary {}",
+                input, input.length(), input.chars().filter(c -> c == '*').count(), minCharacters, maxLength,
+                regex.toString(), dictionary);
+        S_LOGGER.info("Solver :: limits - {}", limits);
+
+        final SolveOperationState opState = new SolveOperationState(
+                dictionary.dawg(), minCharacters, maxLength, regex, progress, isCancellationRequested, new OpTimes(),
+                limits, maxScore(input, maxLength));
         try {
-            final SolveOperationState opState = new SolveOperationState(
-                    m_dictionary, minCharacters, regex, progress, isCancellationRequested, new ConcurrentLinkedQueue<>());
+            S_LOGGER.info("Solver :: regex automaton - {} states, {}", opState.automaton.numStates(),
+                    opState.automaton.isExact() ? "exact" : "inexact, checking solutions against the regex");
 
-            doSolve(combinations, opState);
+            doSolve(input, opState);
 
-            opState.opTimes.stream().mapToDouble(d -> d).average().ifPresent(
-                    d -> S_LOGGER.info("Solver :: avg op - {} ms", d));
-            opState.opTimes.stream().mapToDouble(d -> d).min().ifPresent(
-                    d -> S_LOGGER.info("Solver :: min op - {} ms", d));
-            opState.opTimes.stream().mapToDouble(d -> d).max().ifPresent(
-                    d -> S_LOGGER.info("Solver :: max op - {} ms", d));
+            if (opState.opTimes.count() > 0) {
+                S_LOGGER.info("Solver :: avg op - {} ms", opState.opTimes.average());
+                S_LOGGER.info("Solver :: min op - {} ms", opState.opTimes.min());
+                S_LOGGER.info("Solver :: max op - {} ms", opState.opTimes.max());
+            }
             progress.finish();
         } catch (CancellationException ce) {
-            S_LOGGER.info("Solver :: canceled!");
-            progress.cancel();
-        }
-    }
-
-    private void populateDictionary() throws IOException {
-        InputStream in = Preconditions.checkNotNull(getClass().getResourceAsStream("/dictionary.txt"));
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(in))) {
-            br.lines().forEach(m_dictionary::addWord);
-        }
-    }
-
-    private static void generateCombinationsWithBlanks(StringBuilder sb, Consumer<StringBuilder> combinationConsumer) {
-        for (int i = 0; i < sb.length(); i++) {
-            if (sb.charAt(i) == '*') {
-                for (char c : ALPHABET.toCharArray()) {
-                    sb.setCharAt(i, c);
-                    generateCombinationsWithBlanks(sb, combinationConsumer);
-                }
-
-                return;
+            if (isCancellationRequested.get()) {
+                S_LOGGER.info("Solver :: canceled!");
+                progress.cancel();
+            } else if (opState.hasFoundBest()) {
+                S_LOGGER.info("Solver :: found the best {} solutions by {}",
+                        limits.getResultLimit(), limits.getRanking());
+                progress.finish();
+            } else {
+                S_LOGGER.info("Solver :: out of time, returning the solutions found so far");
+                progress.expire();
             }
         }
 
-        getCombinations(sb, new StringBuilder(), 0, combinationConsumer);
+        return opState.stats;
     }
 
-    private static void getCombinations(
-        StringBuilder sb, StringBuilder build, int idx, Consumer<StringBuilder> combinationConsumer) {
-
-        for (int i = idx; i < sb.length(); i++) {
-            build.append(sb.charAt(i));
-
-            combinationConsumer.accept(new StringBuilder(build));
+    /**
+     * @return the best score a solution could have: that of the highest-valued maxLength tiles, with blanks scoring 0.
+     */
+    static int maxScore(String input, int maxLength) {
+        return input.chars()
+                .map(c -> TileScores.value((char) c))
+                .boxed()
+                .sorted(Comparator.reverseOrder())
+                .limit(maxLength)
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
 
-            getCombinations(sb, build, i + 1, combinationConsumer);
-            build.deleteCharAt(build.length() - 1);
-        }
+    static int maxLength(String input, int maxCharacters) {
+        return maxCharacters == 0 ? input.length() : Math.min(maxCharacters, input.length());
     }
 }
@@ -0,0 +1,24 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * The worker pools of the solvers, with threads named by solver so they can be told apart in thread dumps.
+ *
+ * @author dshih
+ */
+final class SolverPools {
+    private SolverPools() {}
+
+    /**
+     * @param prefix the name of each worker thread, followed by its index in the pool
+     */
+    static ForkJoinPool newPool(String prefix, int parallelism) {
+        return new ForkJoinPool(parallelism, pool -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(prefix + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+}
@@ -0,0 +1,233 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import org.dannyshih.scrabblesolver.TileScores;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class walks the dictionary once, driven by the count of each letter remaining in the input, instead of
+ * permuting combinations. Each dictionary path is visited at most once, so repeated letters never produce duplicate
+ * branches and every word is emitted at most once. The work is proportional to the part of the dictionary reachable
+ * from the input rather than to the number of permutations.
+ *
+ * Blanks are kept as a wildcard count during the walk, so a blank can stand for any letter that has an edge out of the
+ * current node. Solutions that use blanks are reported with the letters the blanks stood for in lowercase.
+ *
+ * The regex is stepped as an automaton alongside the dictionary, so only letters that both continue a word and keep the
+ * regex satisfiable are descended into. Nodes with no word below them long enough for the minimum length, and nodes
+ * past the maximum length, are not descended into either.
+ *
+ * Whether the operation should stop is checked every CHECK_INTERVAL nodes rather than at each one. The minimum length
+ * is the operation's length bound, which rises as solutions are found when only the best are wanted. When only the
+ * best-scoring are wanted, a node is not descended into unless its prefix's score, plus the values of the best tiles
+ * left for as many letters as the longest word below it has still to place, could beat the operation's score bound.
+ *
+ * Progress is measured in first-letter branches. A letter the regex or the dictionary rules out, or that there is no
+ * tile left for, counts as a pruned prefix.
+ *
+ * @author dshih
+ */
+public final class TrieWalkSolver extends Solver {
+    private static final Logger S_LOGGER = LoggerFactory.getLogger(TrieWalkSolver.class);
+    private static final int CHECK_INTERVAL = (1 << 12) - 1; // nodes, as a mask
+    private static final int MAX_TILE_VALUE = 10;
+
+    public TrieWalkSolver() {
+        super();
+    }
+
+    /**
+     * A walk visits each prefix of the dictionary at most once, so it is also bounded by the size of the dictionary.
+     */
+    @Override
+    public long estimateCost(Dictionary dictionary, String input, int minCharacters, int maxCharacters) {
+        return Math.min(super.estimateCost(dictionary, input, minCharacters, maxCharacters),
+                (long) dictionary.getNumWords() * maxLength(input, maxCharacters));
+    }
+
+    @Override
+    protected void doSolve(String input, SolveOperationState state) {
+        final int[] counts = new int[Dawg.ALPHABET_SIZE];
+        int numBlanks = 0;
+        for (int i = 0; i < input.length(); i++) {
+            final char c = input.charAt(i);
+            Preconditions.checkArgument(c == '*' || (c >= 'A' && c <= 'Z'), "Invalid input character: %s", c);
+            if (c == '*') {
+                numBlanks++;
+            } else {
+                counts[c - 'A']++;
+            }
+        }
+
+        state.progress.start(Dawg.ALPHABET_SIZE);
+        S_LOGGER.info("TrieWalkSolver :: walking with {} blanks", numBlanks);
+
+        final Walk walk = new Walk(counts, numBlanks, input.length(), state);
+        final int root = state.dictionary.root();
+        final int start = state.automaton.start();
+        for (int letter = 0; letter < Dawg.ALPHABET_SIZE; letter++) {
+            final int child = state.dictionary.child(root, letter);
+            final int next = state.automaton.step(start, letter);
+            if (child != Dawg.NONE && next != RegexAutomaton.DEAD) {
+                final Stopwatch sw = Stopwatch.createStarted();
+                try {
+                    walk.step(child, next, 0, letter);
+                } finally {
+                    walk.flush();
+                }
+
+                state.opTimes.record(sw.stop().elapsed(TimeUnit.MILLISECONDS));
+            }
+
+            state.progress.addNumProcessed(1L);
+        }
+    }
+
+    /**
+     * The state of a single walk. Real tiles are always preferred over blanks, which makes the blank assignment of
+     * each word canonical: any word reachable by spending a blank on an available letter is also reachable by
+     * spending the real tile and keeping the blank for later.
+     */
+    private static final class Walk {
+        private final Dawg m_dictionary;
+        private final RegexAutomaton m_automaton;
+        private final int[] m_counts;
+        private final char[] m_word;
+        private final boolean[] m_isBlank;
+        private final SolveOperationState m_state;
+        private final SolutionBuffer m_solutions;
+        private int m_numBlanks;
+        private int m_prefixScore;
+        // The number of real tiles left of each value
+        private final int[] m_numByValue;
+        private long m_numVisited;
+        private long m_numPruned;
+        private long m_numLeaves;
+
+        Walk(int[] counts, int numBlanks, int maxLength, SolveOperationState state) {
+            m_counts = counts;
+            m_numBlanks = numBlanks;
+            m_word = new char[maxLength];
+            m_isBlank = new boolean[maxLength];
+            m_state = state;
+            m_dictionary = state.dictionary;
+            m_automaton = state.automaton;
+            m_solutions = new SolutionBuffer(state);
+            m_numByValue = new int[MAX_TILE_VALUE + 1];
+            for (int letter = 0; letter < Dawg.ALPHABET_SIZE; letter++) {
+                m_numByValue[TileScores.value((char) ('A' + letter))] += counts[letter];
+            }
+        }
+
+        /**
+         * Adds the buffered solutions to the progress, and the counts to the stats. Called after each first letter,
+         * even when the walk stops early, so no solution found is lost. Between calls, stale solutions are flushed
+         * every CHECK_INTERVAL + 1 nodes.
+         */
+        void flush() {
+            m_solutions.flush();
+            m_state.stats.add(m_numVisited, m_numPruned, m_numLeaves);
+            m_numVisited = 0L;
+            m_numPruned = 0L;
+            m_numLeaves = 0L;
+        }
+
+        /**
+         * Plays the letter at the given depth, from a real tile if one is left or else from a blank, and walks the
+         * node and regex state it leads to. Does nothing if neither is available.
+         */
+        void step(int node, int regexState, int depth, int letter) {
+            if (m_counts[letter] > 0) {
+                final int value = TileScores.value((char) ('A' + letter));
+                m_counts[letter]--;
+                m_prefixScore += value;
+                m_numByValue[value]--;
+                m_word[depth] = (char) ('A' + letter);
+                m_isBlank[depth] = false;
+                walk(node, regexState, depth + 1);
+                m_counts[letter]++;
+                m_prefixScore -= value;
+                m_numByValue[value]++;
+            } else if (m_numBlanks > 0) {
+                m_numBlanks--;
+                m_word[depth] = (char) ('A' + letter);
+                m_isBlank[depth] = true;
+                walk(node, regexState, depth + 1);
+                m_numBlanks++;
+            } else {
+                m_numPruned++;
+            }
+        }
+
+        private void walk(int node, int regexState, int depth) {
+            if ((++m_numVisited & CHECK_INTERVAL) == 0) {
+                m_state.checkStop();
+                m_solutions.flushIfStale();
+            }
+
+            final int minLength = m_state.bound.minLength();
+            final int threshold = m_state.scores.threshold();
+            if (m_dictionary.maxDepth(node) < minLength - depth
+                    || (threshold >= 0 && bestScore(node, depth) <= threshold)) {
+                m_numPruned++;
+                return;
+            }
+
+            // A word that does not beat the score bound would not be among the best
+            if (depth >= minLength && m_prefixScore > threshold) {
+                m_numLeaves++;
+                if (m_dictionary.isTerminal(node) && m_automaton.accepts(regexState)) {
+                    emit(depth);
+                }
+            }
+
+            if (depth == m_state.maxCharacters) {
+                return;
+            }
+
+            final int childMask = m_dictionary.childMask(node);
+            final int mask = childMask & m_automaton.letterMask(regexState);
+            m_numPruned += Integer.bitCount(childMask) - Integer.bitCount(mask);
+            for (int remaining = mask; remaining != 0; remaining &= remaining - 1) {
+                final int letter = Integer.numberOfTrailingZeros(remaining);
+                step(m_dictionary.child(node, letter), m_automaton.step(regexState, letter), depth, letter);
+            }
+        }
+
+        /**
+         * @return the best score of any word below the node: the prefix's, plus the best tiles left for the rest of
+         *      the longest word below it. Blanks add nothing.
+         */
+        private int bestScore(int node, int depth) {
+            int numLeft = Math.min(m_dictionary.maxDepth(node), m_state.maxCharacters - depth);
+            int score = m_prefixScore;
+            for (int value = MAX_TILE_VALUE; value > 0 && numLeft > 0; value--) {
+                final int n = Math.min(numLeft, m_numByValue[value]);
+                score += n * value;
+                numLeft -= n;
+            }
+
+            return score;
+        }
+
+        private void emit(int length) {
+            final String s = new String(m_word, 0, length);
+            if (!m_automaton.isExact() && !m_state.regex.matcher(s).matches()) {
+                return;
+            }
+
+            final char[] played = s.toCharArray();
+            for (int i = 0; i < length; i++) {
+                if (m_isBlank[i]) {
+                    played[i] = Character.toLowerCase(played[i]);
+                }
+            }
+
+            m_solutions.add(new String(played));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Bounds how many pool workers one parallel operation may occupy at a time. The operation's own task holds one worker
+ * from the start; every task it forks must acquire another, and release it when done.
+ *
+ * The bound is read each time a worker is acquired, so an operation's share shrinks as other operations start and grows
+ * as they finish. Workers are not taken back from a running task, so a change takes effect within one batch.
+ *
+ * @author dshih
+ */
+final class WorkerLease {
+    private final IntSupplier m_share;
+    private final AtomicInteger m_numWorkers;
+
+    /**
+     * @param share how many workers the operation may occupy, including the one running its own task
+     */
+    WorkerLease(IntSupplier share) {
+        m_share = share;
+        m_numWorkers = new AtomicInteger(1);
+    }
+
+    boolean tryAcquire() {
+        final int share = m_share.getAsInt();
+        int numWorkers;
+        do {
+            numWorkers = m_numWorkers.get();
+            if (numWorkers >= share) {
+                return false;
+            }
+        } while (!m_numWorkers.compareAndSet(numWorkers, numWorkers + 1));
+
+        return true;
+    }
+
+    void release() {
+        m_numWorkers.decrementAndGet();
+    }
+}
@@ -1,13 +1,12 @@
 'use strict';
 
-const refreshPeriod = 500; // ms
-var statusTask = undefined;
+var progressStream = undefined;
 var operation = undefined;
-var statusPending = false;
 
 window.onload = async () => {
     document.getElementById('running').style.display = 'none';
     document.getElementById('currentlyRunningDiv').style.display = 'none';
+    document.getElementById('dictionaryDiv').style.display = 'none';
 
     const response = await fetch('/api/getVersions', { method: 'POST' });
     if (response.ok) {
@@ -22,6 +21,25 @@ window.onload = async () => {
         alert('Error getting app info: ' + response.status);
     }
 
+    const responseDicts = await fetch('/api/getDictionaries', { method: 'POST' });
+    if (responseDicts.ok) {
+        const dicts = await responseDicts.json();
+        for (const dict of dicts.dictionaries) {
+            const op = document.createElement('option');
+            op.value = dict.name;
+            op.text = `${dict.name} (${dict.numWords.toLocaleString()} words)`;
+            op.selected = dict.name === dicts.defaultDictionary;
+            document.getElementById('dictionary').appendChild(op);
+        }
+
+        // Only offer a choice when there is one to make.
+        if (dicts.dictionaries.length > 1) {
+            document.getElementById('dictionaryDiv').style.display = 'block';
+        }
+    } else {
+        alert('Error getting dictionaries: ' + responseDicts.status);
+    }
+
     const responseCr = await fetch('/api/getCurrentlyRunning', { method: 'POST' });
     if (responseCr.ok) {
         const currentlyRunning = await responseCr.json();
@@ -49,75 +67,95 @@ function watchOperation() {
     document.getElementById('form').style.display = 'none';
     document.getElementById('running').style.display = 'block';
     document.getElementById('summary').innerText = 'Initializing';
-    statusTask = setInterval(async () => {
-        if (statusPending) {
-            return;
-        }
-
-        const response = await fetch('/api/getProgress', {
-            method: 'POST',
-            headers: { 'Content-Type': 'application/json' },
-            body: JSON.stringify(operation)
-        });
-        if (response.ok) {
-            statusPending = true;
-            const responseJson = await response.json();
-            const progress = responseJson.progress;
-            const solveParams = responseJson.params;
 
+    // Solutions by length, longest first when shown. Each event only carries the solutions found since the last one.
+    const solutionsByLength = [];
+    let numSolutions = 0;
+    progressStream = new EventSource(`/api/streamProgress?id=${encodeURIComponent(operation.id)}`);
+    progressStream.onmessage = (message) => {
+        const progress = JSON.parse(message.data);
+        const solveParams = progress.params;
+        if (solveParams) {
             document.getElementById('summary').innerText =
                 `${solveParams.input} (${solveParams.input.length} chars)
+                ${solveParams.algorithm === 'TrieWalk' ? 'Trie Walk' : 'Permutation'} Algorithm
                 ${solveParams.parallelMode ? 'Parallel' : 'Sequential'} Mode
                 Minimum: ${solveParams.minChars} chars
+                Maximum: ${solveParams.maxChars > 0 ? solveParams.maxChars + ' chars' : 'none'}
                 Matching ${solveParams.regex}
+                ${solveParams.dictionary ?? 'Default'} Dictionary
                 `;
-            
-            document.getElementById('solutions').innerText = '';
-            if (progress['runStatus'] == 'Done') {
-                clearInterval(statusTask);
-                progress['percentDone'] = 100;
-                operation = undefined;
-                document.getElementById('cancelButton').style.display = 'none';
-                document.getElementById('solutions').innerText =
-                    `Found ${progress['solutions'].length} solutions!
+        }
 
-                `;
-            }
+        // Played forms, with the letters blanks stood for in lowercase
+        for (const solution of progress.solutions) {
+            (solutionsByLength[solution.length] ??= []).push(solution);
+        }
 
-            for (let i = 0; i < progress['solutions'].length; i++) {
-                document.getElementById('solutions').innerText += progress['solutions'][i] + '\n';
-            }
+        numSolutions = progress.numSolutions;
+        if (progress.cancellationRequested && progress.runStatus !== 'Canceled') {
+            document.getElementById('cancelButton').style.display = 'none';
+            document.getElementById('summary').innerText = 'Cancellation pending...';
+        }
 
-            let elapsedPretty = new Date(progress['elapsed']).toISOString().substring(11, 19);
-            document.getElementById('progressBar').value = progress['percentDone'];
-            document.getElementById('progressText').innerText =
-                `${progress['percentDone'].toFixed(1)}% of ${progress['total'].toLocaleString()}
-                ${elapsedPretty}
-                `;
-            statusPending = false;
-        } else {
-            if (response.status === 503) {
-                document.getElementById('cancelButton').style.display = 'none';
-                document.getElementById('summary').innerText = 'Cancellation pending...';
-            } else if (response.status === 410) {
-                clearInterval(statusTask);
-                operation = undefined;
-                statusPending = false;
-                document.getElementById('cancelButton').style.display = 'none';
+        let header = '';
+        switch (progress.runStatus) {
+            case 'Done':
+                progress.percentDone = 100;
+                header = progress.truncated
+                    ? `Found over ${numSolutions} solutions! Showing the first ${numSolutions}.\n\n`
+                    : `Found ${numSolutions} solutions!\n\n`;
+                if (progress.partial) {
+                    header = `Ran out of time. ${header}`;
+                }
+                stopWatching();
+                break;
+            case 'Canceled':
                 document.getElementById('summary').innerText = 'Canceled!';
-            } else {
-                alert('Error from server getting progress: ' + response.status);
-            }
+                stopWatching();
+                break;
+            case 'Failed':
+                alert('Error from server during solve operation: ' + progress.error);
+                stopWatching();
+                break;
+        }
+
+        if (progress.solutions.length > 0 || header !== '') {
+            document.getElementById('solutions').innerText =
+                header + solutionsByLength.filter(Boolean).reverse().map(s => s.join('\n')).join('\n');
         }
-    }, refreshPeriod);
+
+        const elapsedPretty = new Date(progress.elapsed).toISOString().substring(11, 19);
+        document.getElementById('progressBar').value = progress.percentDone;
+        document.getElementById('progressText').innerText =
+            `${progress.percentDone.toFixed(1)}% of ${progress.total.toLocaleString()}
+            ${elapsedPretty}
+            `;
+    };
+    progressStream.onerror = () => {
+        // The browser reconnects by itself, resuming from the last event, unless the server refused the stream
+        if (progressStream.readyState === EventSource.CLOSED) {
+            alert('Error from server getting progress');
+            stopWatching();
+        }
+    };
+}
+
+function stopWatching() {
+    progressStream.close();
+    operation = undefined;
+    document.getElementById('cancelButton').style.display = 'none';
 }
 
 document.getElementById('solveButton').onclick = async () => {
     const solveParams = {
+        dictionary: document.getElementById('dictionary').value,
+        algorithm: document.getElementById('algorithm').value,
         parallelMode: document.getElementById('mode').value === 'true',
-        input: document.getElementById('input').value,
+        input: document.getElementById('input').value.toUpperCase(),
         regex: document.getElementById('regex').value,
-        minChars: document.getElementById('minChars').value
+        minChars: document.getElementById('minChars').value,
+        maxChars: document.getElementById('maxChars').value
     };
     if (solveParams.input === '') {
         alert('Must provide input!');
@@ -137,8 +175,16 @@ document.getElementById('solveButton').onclick = async () => {
         operation = await solveResponse.json();
         watchOperation();
     } else {
-        if (solveResponse.status === 400) {
+        const isServerMessage = !(solveResponse.headers.get('Content-Type') || '').startsWith('text/html');
+        const message = await solveResponse.text();
+        if (solveResponse.status === 400 && isServerMessage && message !== '') {
+            // The solver rejected the request
+            alert(message);
+        } else if (solveResponse.status === 400) {
+            // The reverse proxy rejected the request before it reached the solver
             alert('No required TLS certificate was sent');
+        } else if (solveResponse.status === 429) {
+            alert(`The server is busy. Try again in ${solveResponse.headers.get('Retry-After')} seconds.`);
         } else {
             alert('Error from server starting solve operation: ' + solveResponse.status);
         }
@@ -0,0 +1,84 @@
+package org.dannyshih.scrabblesolver;
+
+import org.dannyshih.scrabblesolver.solvers.Board;
+import org.dannyshih.scrabblesolver.solvers.BoardSolver;
+import org.dannyshih.scrabblesolver.solvers.Dictionary;
+import org.dannyshih.scrabblesolver.solvers.DictionaryRegistry;
+import org.dannyshih.scrabblesolver.solvers.Move;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public final class BoardSolverTest {
+    private static Dictionary s_dictionary;
+
+    @BeforeAll
+    public static void loadDictionary() throws IOException {
+        s_dictionary = new DictionaryRegistry().get(null);
+    }
+
+    @Test
+    public void solveEmptyBoard() {
+        final List<Move> moves = new BoardSolver(4).solve(s_dictionary, Board.empty(), "QUIZ", 0);
+
+        // QUIZ through the centre square, which doubles the word. The double letter squares are out of its reach.
+        final Move best = moves.get(0);
+        Assertions.assertEquals("QUIZ", best.getWord());
+        Assertions.assertEquals((10 + 1 + 1 + 10) * 2, best.getScore());
+        moves.forEach(move -> Assertions.assertTrue(covers(move, 7, 7)));
+        for (int i = 1; i < moves.size(); i++) {
+            Assertions.assertTrue(moves.get(i - 1).getScore() >= moves.get(i).getScore());
+        }
+    }
+
+    @Test
+    public void solveWithCrossWords() {
+        final Board board = board(7, 5, "CAT");
+        final List<Move> moves = new BoardSolver(4).solve(s_dictionary, board, "S", 0);
+
+        // The S forms no word down, so CATS is found once, and only across
+        Assertions.assertEquals(1, moves.stream().filter(move -> move.getWord().equals("CATS")).count());
+        final Move cats = moves.stream().filter(move -> move.getWord().equals("CATS")).findFirst().orElseThrow();
+        Assertions.assertEquals(Move.Direction.Across, cats.getDirection());
+        Assertions.assertEquals(6, cats.getScore());
+        moves.forEach(move -> Assertions.assertTrue(move.getWord().length() >= 2));
+    }
+
+    @Test
+    public void solveWithBingoAndBlanks() {
+        final List<Move> moves = new BoardSolver(2).solve(s_dictionary, Board.empty(), "ABRIDG*", 1);
+
+        // Playing all seven tiles earns 50 on top of the word, and the blank scores nothing
+        Assertions.assertEquals(1, moves.size());
+        Assertions.assertEquals(7, moves.get(0).getWord().length());
+        Assertions.assertTrue(moves.get(0).getScore() > 50);
+        Assertions.assertEquals(1, moves.get(0).getWord().chars().filter(Character::isLowerCase).count());
+    }
+
+    @Test
+    public void parseRejectsInvalidBoards() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Board.parse(List.of("...")));
+        final List<String> rows = new ArrayList<>(Collections.nCopies(Board.SIZE, "..............."));
+        rows.set(3, "......1........");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Board.parse(rows));
+    }
+
+    private static boolean covers(Move move, int row, int col) {
+        return move.getDirection() == Move.Direction.Across
+                ? move.getRow() == row && col >= move.getCol() && col < move.getCol() + move.getWord().length()
+                : move.getCol() == col && row >= move.getRow() && row < move.getRow() + move.getWord().length();
+    }
+
+    private static Board board(int row, int col, String across) {
+        final List<String> rows = new ArrayList<>(Collections.nCopies(Board.SIZE, "..............."));
+        final StringBuilder line = new StringBuilder(rows.get(row));
+        line.replace(col, col + across.length(), across);
+        rows.set(row, line.toString());
+        return Board.parse(rows);
+    }
+}
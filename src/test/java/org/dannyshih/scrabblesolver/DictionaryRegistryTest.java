@@ -0,0 +1,78 @@
+package org.dannyshih.scrabblesolver;
+
+import com.google.common.collect.ImmutableMap;
+import org.dannyshih.scrabblesolver.solvers.Dictionary;
+import org.dannyshih.scrabblesolver.solvers.DictionaryCompiler;
+import org.dannyshih.scrabblesolver.solvers.DictionaryRegistry;
+import org.dannyshih.scrabblesolver.solvers.TrieWalkSolver;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+public final class DictionaryRegistryTest {
+
+    @Test
+    public void reloadSwapsInNewVersion(@TempDir Path dir) throws IOException {
+        final Path wordList = dir.resolve("tiny.txt");
+        Files.write(wordList, List.of("cat", "ACT", "TAC"));
+        final DictionaryRegistry registry = new DictionaryRegistry(ImmutableMap.of("tiny", wordList), "tiny");
+
+        final Dictionary before = registry.get(null);
+        Assertions.assertEquals("tiny", before.getName());
+        Assertions.assertEquals(3, before.getNumWords());
+        Assertions.assertEquals(ImmutableMap.of(), solve(before).blanks);
+        Assertions.assertEquals(List.of("ACT", "CAT", "TAC"), sorted(solve(before).solutions));
+
+        Files.write(wordList, List.of("CAT"));
+        final Dictionary after = registry.reload("tiny");
+        Assertions.assertTrue(after.getVersion() > before.getVersion());
+        Assertions.assertSame(after, registry.get("tiny"));
+        Assertions.assertEquals(List.of("CAT"), solve(after).solutions);
+
+        // An operation holding the old version still sees the old word list
+        Assertions.assertEquals(List.of("ACT", "CAT", "TAC"), sorted(solve(before).solutions));
+        Assertions.assertNotNull(registry.get(DictionaryRegistry.BUNDLED));
+    }
+
+    @Test
+    public void reloadAfterRecompilingImage(@TempDir Path dir) throws IOException {
+        final Path wordList = dir.resolve("tiny.txt");
+        final Path image = dir.resolve("tiny.dawg");
+        Files.write(wordList, List.of("ACT", "CAT", "TAC"));
+        DictionaryCompiler.main(new String[] {wordList.toString(), image.toString()});
+        final DictionaryRegistry registry = new DictionaryRegistry(ImmutableMap.of("tiny", image), "tiny");
+        final Dictionary before = registry.get(null);
+
+        // Recompiled over the image the old version has mapped
+        Files.write(wordList, List.of("CAT"));
+        DictionaryCompiler.main(new String[] {wordList.toString(), image.toString()});
+        final Dictionary after = registry.reload("tiny");
+        Assertions.assertEquals(List.of("CAT"), solve(after).solutions);
+        Assertions.assertEquals(List.of("ACT", "CAT", "TAC"), sorted(solve(before).solutions));
+        Assertions.assertEquals(3, before.getNumWords());
+    }
+
+    @Test
+    public void unknownDictionary() throws IOException {
+        final DictionaryRegistry registry = new DictionaryRegistry();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.get("nope"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.reload("nope"));
+    }
+
+    private static Progress.SerializableProgress solve(Dictionary dictionary) {
+        final Progress progress = new Progress();
+        new TrieWalkSolver().solve(dictionary, "TCA", 2, 0, Pattern.compile("[A-Z]+"), progress, new AtomicBoolean());
+        return progress.toSerializable();
+    }
+
+    private static List<String> sorted(List<String> solutions) {
+        return solutions.stream().sorted().toList();
+    }
+}
@@ -0,0 +1,120 @@
+package org.dannyshih.scrabblesolver;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public final class ProgressTest {
+
+    @Test
+    public void solutionsSinceCursor() {
+        final Progress progress = new Progress();
+        progress.addSolution("CAT");
+        progress.addSolution("ACt");
+        progress.addSolution("cat");
+        Assertions.assertEquals(2, progress.getNumSolutions());
+        Assertions.assertEquals(List.of("CAT", "ACt"), progress.getSolutionsSince(0));
+
+        progress.addSolution("TAC");
+        Assertions.assertEquals(List.of("TAC"), progress.getSolutionsSince(2));
+        Assertions.assertEquals(List.of(), progress.getSolutionsSince(3));
+    }
+
+    @Test
+    public void solutionsSinceCursorAcrossChunks() {
+        final Progress progress = new Progress();
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            final String solution = Integer.toString(i, 26).toUpperCase();
+            expected.add(solution);
+            progress.addSolution(solution);
+        }
+
+        Assertions.assertEquals(5000, progress.getNumSolutions());
+        Assertions.assertEquals(expected, progress.getSolutionsSince(0));
+        Assertions.assertEquals(expected.subList(1023, 5000), progress.getSolutionsSince(1023));
+    }
+
+    @Test
+    public void serializableSinceCursor() {
+        final Progress progress = new Progress();
+        progress.start(10);
+        progress.addSolution("AT");
+        progress.addSolution("CAt");
+
+        final Progress.SerializableProgress all = progress.toSerializable();
+        Assertions.assertEquals(List.of("CAT", "AT"), all.solutions);
+        Assertions.assertEquals(Map.of("CAT", "CAt"), all.blanks);
+        Assertions.assertEquals(2, all.cursor);
+
+        progress.addSolution("TACt");
+        final Progress.SerializableProgress since = progress.toSerializable(all.cursor, 0);
+        Assertions.assertEquals(List.of("TACT"), since.solutions);
+        Assertions.assertEquals(Map.of("TACT", "TACt"), since.blanks);
+        Assertions.assertEquals(3, since.cursor);
+
+        final Progress.SerializableProgress none = progress.toSerializable(since.cursor, 0);
+        Assertions.assertEquals(List.of(), none.solutions);
+        Assertions.assertEquals(3, none.cursor);
+    }
+
+    @Test
+    public void serializableLongestFirst() {
+        final Progress progress = new Progress();
+        progress.start(10);
+        progress.addSolution("AT");
+        progress.addSolution("TACT");
+        progress.addSolution("CAT");
+        progress.addSolution("TA");
+        progress.addSolution("ACT");
+
+        Assertions.assertEquals(List.of("TACT", "CAT", "ACT", "AT", "TA"), progress.toSerializable().solutions);
+        final Progress.SerializableProgress top = progress.toSerializable(0, 2);
+        Assertions.assertEquals(List.of("TACT", "CAT"), top.solutions);
+        Assertions.assertEquals(5, top.cursor);
+    }
+
+    @Test
+    public void serializableBestScoreFirst() {
+        final Progress progress = new Progress(Integer.MAX_VALUE, 3, Progress.Ranking.Score);
+        progress.start(10);
+        progress.addSolution("ZA");
+        progress.addSolution("TACT");
+        progress.addSolution("QaT");
+        progress.addSolution("AT");
+
+        // A letter played with a blank scores nothing, and only the best 3 make up the result
+        final Progress.SerializableProgress sp = progress.toSerializable();
+        Assertions.assertEquals(List.of("ZA", "QAT", "TACT"), sp.solutions);
+        Assertions.assertEquals(Map.of("ZA", 11, "QAT", 11, "TACT", 6), sp.scores);
+    }
+
+    @Test
+    public void dropsSolutionsOverMaximum() {
+        final Progress progress = new Progress(2);
+        progress.start(10);
+        progress.addSolution("AT");
+        progress.addSolution("CAT");
+        Assertions.assertFalse(progress.isTruncated());
+
+        progress.addSolution("TACT");
+        progress.addSolution("AT");
+        Assertions.assertTrue(progress.isTruncated());
+        Assertions.assertEquals(2, progress.getNumSolutions());
+        Assertions.assertEquals(Map.of("AT", "AT", "CAT", "CAT"), progress.getSolutions());
+        Assertions.assertTrue(progress.toSerializable().truncated);
+    }
+
+    @Test
+    public void addSolutionsInBatches() {
+        final Progress progress = new Progress(3);
+        progress.addSolution("AT");
+        progress.addSolutions(List.of("CAT", "at", "ACt", "TACT"));
+        Assertions.assertEquals(List.of("AT", "CAT", "ACt"), progress.getSolutionsSince(0));
+        Assertions.assertEquals(Map.of("AT", "AT", "CAT", "CAT", "ACT", "ACt"), progress.getSolutions());
+        Assertions.assertTrue(progress.isTruncated());
+    }
+}
@@ -1,41 +1,223 @@
 package org.dannyshih.scrabblesolver;
 
 import com.google.common.collect.ImmutableList;
+import org.dannyshih.scrabblesolver.solvers.BatchSolver;
+import org.dannyshih.scrabblesolver.solvers.Dictionary;
+import org.dannyshih.scrabblesolver.solvers.DictionaryRegistry;
 import org.dannyshih.scrabblesolver.solvers.ParallelSolver;
 import org.dannyshih.scrabblesolver.solvers.SequentialSolver;
+import org.dannyshih.scrabblesolver.solvers.SolveLimits;
+import org.dannyshih.scrabblesolver.solvers.SolveStats;
 import org.dannyshih.scrabblesolver.solvers.Solver;
+import org.dannyshih.scrabblesolver.solvers.TrieWalkSolver;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
 public final class SolverTest {
+    private static Dictionary s_dictionary;
+
+    @BeforeAll
+    public static void loadDictionary() throws IOException {
+        s_dictionary = new DictionaryRegistry().get(null);
+    }
 
     @Test
-    public void solveSerial() throws IOException {
+    public void solveSerial() {
         solve(new SequentialSolver());
     }
 
     @Test
-    public void solveParallel() throws IOException {
+    public void solveParallel() {
         solve(new ParallelSolver());
     }
 
+    @Test
+    public void solveParallelWithOneWorkerPerOperation() {
+        solve(new ParallelSolver(4, 1, 1));
+    }
+
+    @Test
+    public void solveTrieWalk() {
+        solve(new TrieWalkSolver());
+    }
+
+    @Test
+    public void solveWithUnsupportedRegexSyntax() {
+        // A lookahead cannot be pushed down into the traversal, so solutions are matched against the regex instead
+        solve(new SequentialSolver(), "(?=A)[A-Z]+");
+        solve(new TrieWalkSolver(), "(?=A)[A-Z]+");
+    }
+
+    @Test
+    public void solveWithMaximumLength() {
+        final List<List<String>> results = new ArrayList<>();
+        for (final Solver solver : List.of(new SequentialSolver(), new TrieWalkSolver())) {
+            final Progress progress = new Progress();
+            solver.solve(s_dictionary, "*ABCD*EFGHI", 8, 8, Pattern.compile("A.+"), progress, new AtomicBoolean());
+            results.add(progress.toSerializable().solutions.stream().sorted().toList());
+        }
+
+        // Every solution but ARCHFIEND has 8 letters
+        Assertions.assertEquals(20, results.get(0).size());
+        Assertions.assertFalse(results.get(0).contains("ARCHFIEND"));
+        Assertions.assertEquals(results.get(0), results.get(1));
+    }
+
+    @Test
+    public void trieWalkReportsBlanks() {
+        final Progress progress = new Progress();
+        new TrieWalkSolver().solve(
+                s_dictionary, "*ABCD*EFGHI", 8, 0, Pattern.compile("AB.+"), progress, new AtomicBoolean());
+
+        // Real tiles are preferred, so blanks stand for the letters the rack runs out of
+        Assertions.assertEquals("ABrIDGEd", progress.toSerializable().blanks.get("ABRIDGED"));
+        Assertions.assertEquals("ABDICatE", progress.toSerializable().blanks.get("ABDICATE"));
+    }
+
+    @Test
+    public void solveReportsStats() {
+        final List<SolveStats> stats = new ArrayList<>();
+        for (final Solver solver : List.of(new SequentialSolver(), new ParallelSolver(4, 0, 1), new TrieWalkSolver())) {
+            final Progress progress = new Progress();
+            stats.add(solver.solve(
+                    s_dictionary, "*ABCD*EFGHI", 8, 0, Pattern.compile("A.+"), progress, new AtomicBoolean()));
+            Assertions.assertTrue(stats.get(stats.size() - 1).getLeavesChecked() >= progress.getNumSolutions());
+        }
+
+        // Splitting work across tasks does not change how much of it there is
+        Assertions.assertEquals(stats.get(0).getNodesVisited(), stats.get(1).getNodesVisited());
+        Assertions.assertEquals(stats.get(0).getPrefixesPruned(), stats.get(1).getPrefixesPruned());
+        Assertions.assertEquals(stats.get(0).getLeavesChecked(), stats.get(1).getLeavesChecked());
+        Assertions.assertTrue(stats.get(0).getGenerationNanos() > 0L);
+
+        // The walk visits each prefix once, rather than once per permutation that reaches it
+        Assertions.assertTrue(stats.get(2).getNodesVisited() < stats.get(0).getNodesVisited());
+        Assertions.assertTrue(stats.get(2).getPrefixesPruned() > 0L);
+        Assertions.assertEquals(0L, stats.get(2).getGenerationNanos());
+    }
+
+    @Test
+    public void solveBestWithResultLimit() {
+        for (final Solver solver : List.of(new SequentialSolver(), new ParallelSolver(4, 0, 1), new TrieWalkSolver())) {
+            final Progress progress = new Progress(Integer.MAX_VALUE, 5);
+            solver.solve(s_dictionary, "*ABCD*EFGHI", 2, 0, Pattern.compile("A.+"), progress, new AtomicBoolean(),
+                    SolveLimits.of(0L, 5));
+
+            // ARCHFIEND is the only 9-letter solution, so the best 5 are it and 4 of the 8-letter ones
+            final List<String> solutions = progress.toSerializable().solutions;
+            Assertions.assertEquals(Progress.RunStatus.Done, progress.getRunStatus());
+            Assertions.assertFalse(progress.isPartial());
+            Assertions.assertEquals(5, solutions.size());
+            Assertions.assertEquals("ARCHFIEND", solutions.get(0));
+            solutions.subList(1, 5).forEach(solution -> Assertions.assertEquals(8, solution.length()));
+        }
+    }
+
+    @Test
+    public void solveBestByScore() {
+        final Progress all = new Progress();
+        new TrieWalkSolver().solve(s_dictionary, "*ABCDQEFGHI", 2, 0, Pattern.compile(".+"), all, new AtomicBoolean());
+        final List<Integer> expected = all.getSolutions().values().stream()
+                .map(TileScores::score)
+                .sorted(Comparator.reverseOrder())
+                .limit(10)
+                .toList();
+
+        for (final Solver solver : List.of(new SequentialSolver(), new ParallelSolver(4, 0, 1), new TrieWalkSolver())) {
+            final Progress progress = new Progress(Integer.MAX_VALUE, 10, Progress.Ranking.Score);
+            solver.solve(s_dictionary, "*ABCDQEFGHI", 2, 0, Pattern.compile(".+"), progress, new AtomicBoolean(),
+                    SolveLimits.of(0L, 10, Progress.Ranking.Score));
+
+            final Progress.SerializableProgress sp = progress.toSerializable();
+            Assertions.assertEquals(expected, sp.solutions.stream().map(sp.scores::get).toList());
+            // Branches that cannot beat the tenth best are pruned, so far fewer solutions are found than there are
+            Assertions.assertTrue(progress.getNumSolutions() < all.getNumSolutions() / 2);
+        }
+    }
+
+    @Test
+    public void solveWithinTimeBudget() {
+        final Progress progress = new Progress();
+        new SequentialSolver().solve(s_dictionary, "*ABCDEFGHIJKLM*", 2, 0, Pattern.compile(".+"), progress,
+                new AtomicBoolean(), SolveLimits.of(1L, 0));
+
+        Assertions.assertEquals(Progress.RunStatus.Done, progress.getRunStatus());
+        Assertions.assertTrue(progress.isPartial());
+        Assertions.assertTrue(progress.getNumProcessed() < progress.getTotal());
+    }
+
+    @Test
+    public void solveBatch() {
+        // Input, minimum length, maximum length and regex of each rack
+        final List<List<Object>> params = List.of(
+                List.of("*ABCD*EFGHI", 8, 0, "A.+"),
+                List.of("RETAINS", 2, 0, ".+"),
+                List.of("QUIZ*", 3, 4, ".+"),
+                List.of("NIATERS", 2, 0, ".+"),
+                List.of("RETAINS", 2, 0, "S.*"));
+        final List<BatchSolver.Rack> racks = params.stream()
+                .map(p -> new BatchSolver.Rack(s_dictionary, (String) p.get(0), (Integer) p.get(1), (Integer) p.get(2),
+                        Pattern.compile((String) p.get(3))))
+                .toList();
+        final Map<Integer, List<String>> solved = new ConcurrentHashMap<>();
+        new BatchSolver(2).solve(racks, new AtomicBoolean(), solved::put);
+
+        // Every rack, including the one with the same letters as another, gets the solutions a trie walk finds
+        Assertions.assertEquals(racks.size(), solved.size());
+        for (int i = 0; i < racks.size(); i++) {
+            final List<Object> p = params.get(i);
+            final Progress progress = new Progress();
+            new TrieWalkSolver().solve(s_dictionary, (String) p.get(0), (Integer) p.get(1), (Integer) p.get(2),
+                    Pattern.compile((String) p.get(3)), progress, new AtomicBoolean());
+            Assertions.assertEquals(new HashSet<>(progress.getSolutions().values()), new HashSet<>(solved.get(i)));
+        }
+    }
+
     private void solve(Solver solver) {
-        final int numExpected = 3;
+        solve(solver, "A.+");
+    }
+
+    private void solve(Solver solver, String regexSource) {
+        final int numExpected = 21;
         final List<String> expected = ImmutableList.of(
                 "ABDICATE",
+                "ABDUCING",
+                "ABIDANCE",
+                "ABRIDGED",
+                "ABRIDGER",
+                "ABRIDGES",
+                "ABSCISED",
+                "ACCEDING",
+                "ACCINGED",
+                "ACHIEVED",
                 "ACIDHEAD",
-                "ABIDANCE");
+                "ADHERING",
+                "AFFICHES",
+                "ALBERGHI",
+                "ALGICIDE",
+                "ALIGHTED",
+                "APHICIDE",
+                "ARCHFIEND",
+                "ARCHIVED",
+                "ARGUFIED",
+                "ASCRIBED");
 
         final String input = "*ABCD*EFGHI";
         final int minCharacters = 8;
-        final Pattern regex = Pattern.compile("A.+");
+        final Pattern regex = Pattern.compile(regexSource);
         final Progress progress = new Progress();
-        solver.solve(input, minCharacters, regex, progress, new AtomicBoolean());
+        solver.solve(s_dictionary, input, minCharacters, 0, regex, progress, new AtomicBoolean());
 
         Assertions.assertEquals(numExpected, progress.toSerializable().solutions.size());
         expected.forEach(expectedSolution ->
@@ -0,0 +1,119 @@
+package org.dannyshih.scrabblesolver.service;
+
+import org.dannyshih.scrabblesolver.Progress;
+import org.dannyshih.scrabblesolver.dto.SolveRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public final class OperationArchiveTest {
+
+    @Test
+    public void roundTrip(@TempDir Path dir) throws IOException {
+        final OperationArchive archive = new OperationArchive(dir, 1 << 20, 1 << 20);
+        final SolveRequest request = new SolveRequest(true, "TCA*", "[A-Z]+", 2);
+        request.setAlgorithm(SolveRequest.Algorithm.TrieWalk);
+        request.setRanking(Progress.Ranking.Score);
+        request.setResultLimit(10);
+        final Progress progress = new Progress(100, 10, Progress.Ranking.Score);
+        progress.start(4L);
+        progress.addSolutions(List.of("CAT", "aCT", "TACs"));
+        progress.addNumProcessed(4L);
+        progress.finish();
+
+        final UUID id = UUID.randomUUID();
+        archive.put(id, request, progress);
+        Assertions.assertTrue(archive.contains(id));
+        Assertions.assertNull(archive.get(UUID.randomUUID()));
+
+        final ScrabbleSolverService.Operation op = archive.get(id);
+        Assertions.assertEquals("TCA*", op.params.getInput());
+        Assertions.assertEquals("[A-Z]+", op.params.getRegex());
+        Assertions.assertEquals(SolveRequest.Algorithm.TrieWalk, op.params.getAlgorithm());
+        Assertions.assertEquals(Progress.Ranking.Score, op.params.getRanking());
+        Assertions.assertNull(op.params.getDictionary());
+        Assertions.assertFalse(op.isCancellationRequested.get());
+
+        final Progress.SerializableProgress expected = progress.toSerializable();
+        final Progress.SerializableProgress actual = op.progress.toSerializable();
+        Assertions.assertEquals(Progress.RunStatus.Done, actual.runStatus);
+        Assertions.assertEquals(expected.solutions, actual.solutions);
+        Assertions.assertEquals(expected.blanks, actual.blanks);
+        Assertions.assertEquals(expected.percentDone, actual.percentDone);
+        Assertions.assertEquals(progress.getFinishedDate(), op.progress.getFinishedDate());
+        Assertions.assertEquals(progress.getElapsed(), op.progress.getElapsed());
+
+        // The ETag comes from the index, and a result that was read is not inflated again
+        Assertions.assertEquals(ScrabbleSolverService.progressState(Progress.RunStatus.Done, 3, 4L, false),
+                archive.progressState(id));
+        Assertions.assertNull(archive.progressState(UUID.randomUUID()));
+        Assertions.assertSame(op, archive.get(id));
+    }
+
+    @Test
+    public void indexSurvivesReopening(@TempDir Path dir) throws IOException {
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+        final OperationArchive archive = new OperationArchive(dir, 1 << 20, 1 << 20);
+        archive.put(first, new SolveRequest(false, "DOG", "[A-Z]+", 2), done(List.of("DOG", "GOD"), new Date()));
+        archive.put(second, new SolveRequest(false, "TCA", "[A-Z]+", 2), done(List.of("CAT"), new Date()));
+        // Another server cannot share the directory
+        Assertions.assertThrows(IOException.class, () -> new OperationArchive(dir, 1 << 20, 1 << 20));
+        archive.close();
+
+        final OperationArchive reopened = new OperationArchive(dir, 1 << 20, 1 << 20);
+        Assertions.assertEquals(2, reopened.size());
+        Assertions.assertEquals(List.of("DOG", "GOD"), reopened.get(first).progress.getSolutionsSince(0));
+        Assertions.assertEquals("TCA", reopened.get(second).params.getInput());
+        Assertions.assertEquals(ScrabbleSolverService.progressState(Progress.RunStatus.Done, 1, 1L, false),
+                reopened.progressState(second));
+
+        // Appends go to a new segment, behind the recovered ones
+        final UUID third = UUID.randomUUID();
+        reopened.put(third, new SolveRequest(false, "ZA", "[A-Z]+", 2), done(List.of("ZA"), new Date()));
+        Assertions.assertEquals(2, segments(dir));
+        reopened.close();
+        Assertions.assertEquals(3, new OperationArchive(dir, 1 << 20, 1 << 20).size());
+    }
+
+    @Test
+    public void expiryDeletesSegments(@TempDir Path dir) throws IOException {
+        // Every record gets a segment of its own
+        final OperationArchive archive = new OperationArchive(dir, 1, 1 << 20);
+        final UUID old = UUID.randomUUID();
+        final UUID recent = UUID.randomUUID();
+        archive.put(old, new SolveRequest(false, "DOG", "[A-Z]+", 2), done(List.of("DOG"), new Date(1000L)));
+        archive.put(recent, new SolveRequest(false, "TCA", "[A-Z]+", 2), done(List.of("CAT"), new Date(3000L)));
+        Assertions.assertEquals(2, segments(dir));
+
+        archive.expire(2000L);
+        Assertions.assertFalse(archive.contains(old));
+        Assertions.assertNull(archive.get(old));
+        Assertions.assertEquals(List.of("CAT"), archive.get(recent).progress.getSolutionsSince(0));
+        Assertions.assertEquals(1, segments(dir));
+
+        archive.expire(4000L);
+        Assertions.assertEquals(0, archive.size());
+        Assertions.assertEquals(0, segments(dir));
+        archive.put(old, new SolveRequest(false, "DOG", "[A-Z]+", 2), done(List.of("DOG"), new Date()));
+        Assertions.assertTrue(archive.contains(old));
+    }
+
+    private static Progress done(List<String> solutions, Date finished) {
+        return Progress.restore(0, Progress.Ranking.Length, solutions, false, false, 1L, 1L, 5L, finished);
+    }
+
+    private static long segments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".dat")).count();
+        }
+    }
+}
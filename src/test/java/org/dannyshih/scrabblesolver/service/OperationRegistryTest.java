@@ -0,0 +1,74 @@
+package org.dannyshih.scrabblesolver.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dannyshih.scrabblesolver.Progress;
+import org.dannyshih.scrabblesolver.dto.SolveRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public final class OperationRegistryTest {
+
+    @Test
+    public void expiresFinishedOperationsByTime() {
+        final OperationRegistry registry = new OperationRegistry(0L, new SimpleMeterRegistry());
+        final UUID running = add(registry, List.of());
+        final UUID early = add(registry, List.of("CAT"));
+        final UUID late = add(registry, List.of("DOG"));
+        registry.finish(late, 2000L);
+        registry.finish(early, 1000L);
+
+        registry.expire(999L);
+        Assertions.assertEquals(3, registry.size());
+        registry.expire(1500L);
+        Assertions.assertNull(registry.get(early));
+        Assertions.assertNotNull(registry.get(late));
+        registry.expire(Long.MAX_VALUE);
+        Assertions.assertNull(registry.get(late));
+        Assertions.assertNotNull(registry.get(running));
+
+        registry.remove(running);
+        Assertions.assertEquals(0, registry.size());
+        Assertions.assertEquals(0L, registry.sizeInBytes());
+    }
+
+    @Test
+    public void evictsFinishedOperationsOverBudget() {
+        final OperationRegistry registry = new OperationRegistry(3 * 1024 + 512, new SimpleMeterRegistry());
+        final UUID running = add(registry, List.of());
+        final UUID first = add(registry, List.of());
+        final UUID second = add(registry, List.of());
+        registry.finish(first, 1000L);
+        registry.finish(second, 2000L);
+        Assertions.assertEquals(3, registry.size());
+
+        // The running operation's solutions only count once its estimate is refreshed, and it cannot be evicted
+        registry.get(running).progress.addSolutions(List.of("CAT", "ACT", "TAC", "SCAT"));
+        registry.expire(0L);
+        Assertions.assertNull(registry.get(first));
+        Assertions.assertNotNull(registry.get(second));
+        Assertions.assertNotNull(registry.get(running));
+        Assertions.assertTrue(registry.sizeInBytes() <= 3 * 1024 + 512);
+
+        registry.get(running).progress.addSolutions(
+                List.of("CATS", "ACTS", "TACS", "CASTS", "SCATS", "AT", "TA", "AS"));
+        registry.expire(0L);
+        Assertions.assertNull(registry.get(second));
+        Assertions.assertNotNull(registry.get(running));
+    }
+
+    private static UUID add(OperationRegistry registry, List<String> solutions) {
+        final ScrabbleSolverService.Operation op = new ScrabbleSolverService.Operation();
+        op.params = new SolveRequest(false, "TCAS*", "[A-Z]+", 2);
+        op.progress = new Progress();
+        op.progress.start(1L);
+        op.progress.addSolutions(solutions);
+        op.isCancellationRequested = new AtomicBoolean();
+        final UUID operationId = UUID.randomUUID();
+        registry.add(operationId, op);
+        return operationId;
+    }
+}
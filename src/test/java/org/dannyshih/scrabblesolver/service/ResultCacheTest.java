@@ -0,0 +1,90 @@
+package org.dannyshih.scrabblesolver.service;
+
+import com.google.common.collect.ImmutableMap;
+import org.dannyshih.scrabblesolver.Progress;
+import org.dannyshih.scrabblesolver.dto.SolveRequest;
+import org.dannyshih.scrabblesolver.solvers.Dictionary;
+import org.dannyshih.scrabblesolver.solvers.DictionaryRegistry;
+import org.dannyshih.scrabblesolver.solvers.SequentialSolver;
+import org.dannyshih.scrabblesolver.solvers.Solver;
+import org.dannyshih.scrabblesolver.solvers.TrieWalkSolver;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+public final class ResultCacheTest {
+    private static final Solver TRIE_WALK = new TrieWalkSolver();
+
+    @Test
+    public void hitIgnoresLetterOrder(@TempDir Path dir) throws IOException {
+        final Dictionary dictionary = tinyRegistry(dir).get(null);
+        final ResultCache cache = new ResultCache(1 << 20);
+        cache.put(request("TC*", 2, "[A-Z]+"), dictionary, TRIE_WALK, solve(dictionary, "TC*"));
+
+        final Progress progress = new Progress();
+        Assertions.assertTrue(cache.complete(request("*CT", 2, "[A-Z]+"), dictionary, TRIE_WALK, progress));
+        final Progress.SerializableProgress result = progress.toSerializable();
+        Assertions.assertEquals(Progress.RunStatus.Done, result.runStatus);
+        Assertions.assertEquals(100.0f, result.percentDone);
+        Assertions.assertEquals(List.of("ACT", "CAT", "TAC"), result.solutions.stream().sorted().toList());
+        Assertions.assertEquals(ImmutableMap.of("ACT", "aCT", "CAT", "CaT", "TAC", "TaC"), result.blanks);
+    }
+
+    @Test
+    public void missOnDifferentConstraintsOrVersion(@TempDir Path dir) throws IOException {
+        final DictionaryRegistry registry = tinyRegistry(dir);
+        final Dictionary dictionary = registry.get(null);
+        final ResultCache cache = new ResultCache(1 << 20);
+        cache.put(request("TCA", 2, "[A-Z]+"), dictionary, TRIE_WALK, solve(dictionary, "TCA"));
+
+        Assertions.assertFalse(complete(cache, request("TC*", 2, "[A-Z]+"), dictionary, TRIE_WALK));
+        Assertions.assertFalse(complete(cache, request("TCA", 3, "[A-Z]+"), dictionary, TRIE_WALK));
+        Assertions.assertFalse(complete(cache, request("TCA", 2, "C.+"), dictionary, TRIE_WALK));
+        Assertions.assertFalse(complete(cache, request("TCA", 2, "[A-Z]+"), registry.reload("tiny"), TRIE_WALK));
+        // Solvers can place blanks differently, so one's results are not served for another
+        Assertions.assertFalse(complete(cache, request("TCA", 2, "[A-Z]+"), dictionary, new SequentialSolver()));
+        Assertions.assertTrue(complete(cache, request("ACT", 2, "[A-Z]+"), dictionary, TRIE_WALK));
+    }
+
+    @Test
+    public void onlyFinishedOperationsAreCached(@TempDir Path dir) throws IOException {
+        final Dictionary dictionary = tinyRegistry(dir).get(null);
+        final ResultCache cache = new ResultCache(1 << 20);
+        final Progress canceled = new Progress();
+        canceled.start(1L);
+        canceled.cancel();
+        cache.put(request("TCA", 2, "[A-Z]+"), dictionary, TRIE_WALK, canceled);
+        Assertions.assertEquals(0L, cache.size());
+
+        final ResultCache disabled = new ResultCache(0L);
+        disabled.put(request("TCA", 2, "[A-Z]+"), dictionary, TRIE_WALK, solve(dictionary, "TCA"));
+        Assertions.assertEquals(0L, disabled.size());
+    }
+
+    private static DictionaryRegistry tinyRegistry(Path dir) throws IOException {
+        final Path wordList = dir.resolve("tiny.txt");
+        Files.write(wordList, List.of("ACT", "CAT", "TAC"));
+        return new DictionaryRegistry(ImmutableMap.of("tiny", wordList), "tiny");
+    }
+
+    private static SolveRequest request(String input, int minChars, String regex) {
+        return new SolveRequest(false, input, regex, minChars);
+    }
+
+    private static boolean complete(ResultCache cache, SolveRequest request, Dictionary dictionary, Solver solver) {
+        return cache.complete(request, dictionary, solver, new Progress());
+    }
+
+    private static Progress solve(Dictionary dictionary, String input) {
+        final Progress progress = new Progress();
+        TRIE_WALK.solve(dictionary, input, 2, 0, Pattern.compile("[A-Z]+"), progress, new AtomicBoolean());
+        return progress;
+    }
+}
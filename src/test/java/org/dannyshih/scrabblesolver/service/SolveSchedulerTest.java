@@ -0,0 +1,68 @@
+package org.dannyshih.scrabblesolver.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public final class SolveSchedulerTest {
+
+    @Test
+    public void cheapOperationsRunFirst() throws InterruptedException {
+        final SolveScheduler scheduler = new SolveScheduler(1, 8, 8, new SimpleMeterRegistry());
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        final List<String> order = new CopyOnWriteArrayList<>();
+        scheduler.submit("a", 1L, () -> await(release));
+        scheduler.submit("b", 1_000_000_000L, () -> record(order, "large", done));
+        scheduler.submit("c", 1_000L, () -> record(order, "small", done));
+        scheduler.submit("d", 1_000_000L, () -> record(order, "medium", done));
+
+        release.countDown();
+        Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(List.of("small", "medium", "large"), order);
+    }
+
+    @Test
+    public void rejectsWhenQueueIsFull() {
+        final SolveScheduler scheduler = new SolveScheduler(1, 1, 8, new SimpleMeterRegistry());
+        final CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit("a", 1L, () -> await(release));
+        scheduler.submit("b", 1L, () -> {});
+
+        final SolveRejectedException e = Assertions.assertThrows(
+                SolveRejectedException.class, () -> scheduler.submit("c", 1L, () -> {}));
+        Assertions.assertTrue(e.getRetryAfterSeconds() > 0);
+        release.countDown();
+    }
+
+    @Test
+    public void rejectsOverClientShare() {
+        final SolveScheduler scheduler = new SolveScheduler(1, 8, 2, new SimpleMeterRegistry());
+        final CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit("a", 1L, () -> await(release));
+        scheduler.submit("a", 1L, () -> {});
+        scheduler.submit("a", 1L, () -> {});
+
+        Assertions.assertThrows(SolveRejectedException.class, () -> scheduler.submit("a", 1L, () -> {}));
+        scheduler.submit("b", 1L, () -> {});
+        release.countDown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void record(List<String> order, String name, CountDownLatch done) {
+        order.add(name);
+        done.countDown();
+    }
+}
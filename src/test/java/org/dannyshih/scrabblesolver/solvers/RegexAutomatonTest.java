@@ -0,0 +1,99 @@
+package org.dannyshih.scrabblesolver.solvers;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public final class RegexAutomatonTest {
+    private static final String LETTERS = "ABCS";
+    private static final int MAX_LENGTH = 6;
+
+    @Test
+    public void matchesLikePattern() {
+        final List<String> words = words();
+        for (final String regex : List.of(
+                "A*", "A+B?", "A.+", ".*S", "[^A]+", "[A-C]{2,}", "A{1,3}B", "A{2}", "(AB|C)*S", "(A|B)*?C", "A??B",
+                "\\w+", "^AB$", "(S|)(A|BC)+", "((A|B)C)*")) {
+            final RegexAutomaton automaton = RegexAutomaton.compile(Pattern.compile(regex));
+            Assertions.assertTrue(automaton.isExact(), regex);
+            for (final String word : words) {
+                Assertions.assertEquals(Pattern.matches(regex, word), accepts(automaton, word), regex + " " + word);
+            }
+        }
+    }
+
+    @Test
+    public void repeatedQuantifiersAreInexact() {
+        // java.util.regex does not repeat a repetition, so these must still be matched against the Pattern
+        final List<String> words = words();
+        for (final String regex : List.of(
+                "A{3}{2}", ".{2}{3}", "[A-Z]{2}{3}", "A?{2}", "A??{2}", "(AB){2}{2}", "A*+")) {
+            final RegexAutomaton automaton = RegexAutomaton.compile(Pattern.compile(regex));
+            Assertions.assertFalse(automaton.isExact(), regex);
+            for (final String word : words) {
+                Assertions.assertTrue(!Pattern.matches(regex, word) || accepts(automaton, word), regex + " " + word);
+            }
+        }
+    }
+
+    @Test
+    public void everyStateIsLive() {
+        // A chain of states, most of which only reach an accepting state through many others. Every state reachable
+        // from the start must be live, and a letter leads to DEAD exactly when it is missing from the mask.
+        final RegexAutomaton automaton = RegexAutomaton.compile(Pattern.compile("(A.{40}B|C)S"));
+        Assertions.assertTrue(automaton.isExact());
+        Assertions.assertTrue(automaton.numStates() > 40);
+        final boolean[] reached = new boolean[automaton.numStates()];
+        final Deque<Integer> pending = new ArrayDeque<>(List.of(automaton.start()));
+        reached[automaton.start()] = true;
+        while (!pending.isEmpty()) {
+            final int state = pending.remove();
+            Assertions.assertTrue(automaton.accepts(state) || automaton.letterMask(state) != 0);
+            for (int letter = 0; letter < Dawg.ALPHABET_SIZE; letter++) {
+                final int next = automaton.step(state, letter);
+                final boolean inMask = (automaton.letterMask(state) & (1 << letter)) != 0;
+                Assertions.assertEquals(inMask, next != RegexAutomaton.DEAD);
+                if (next != RegexAutomaton.DEAD && !reached[next]) {
+                    reached[next] = true;
+                    pending.add(next);
+                }
+            }
+        }
+
+        Assertions.assertTrue(accepts(automaton, "A" + "Z".repeat(40) + "BS"));
+        Assertions.assertFalse(accepts(automaton, "A" + "Z".repeat(40) + "CS"));
+        Assertions.assertEquals(RegexAutomaton.DEAD, automaton.step(automaton.start(), 'B' - 'A'));
+    }
+
+    private static boolean accepts(RegexAutomaton automaton, String word) {
+        int state = automaton.start();
+        for (int i = 0; i < word.length(); i++) {
+            state = automaton.step(state, word.charAt(i) - 'A');
+            if (state == RegexAutomaton.DEAD) {
+                return false;
+            }
+        }
+
+        return automaton.accepts(state);
+    }
+
+    /**
+     * @return every word over LETTERS of up to MAX_LENGTH letters, including the empty one.
+     */
+    private static List<String> words() {
+        final List<String> words = new ArrayList<>();
+        words.add("");
+        for (int start = 0; words.get(start).length() < MAX_LENGTH; start++) {
+            for (int i = 0; i < LETTERS.length(); i++) {
+                words.add(words.get(start) + LETTERS.charAt(i));
+            }
+        }
+
+        return words;
+    }
+}